@@ -0,0 +1,162 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.PerkmanagerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application against an in-memory H2 database and fills it with a
+ * synthetic perk catalog, so benchmarks run offline without PostgreSQL.
+ * <p>
+ * The catalog is generated from a fixed seed, so every run sees the same data.
+ *
+ */
+final class BenchmarkCatalog implements AutoCloseable {
+
+    static final String[] MEMBERSHIP_TYPES = {
+            "Credit card", "Air Miles", "Loyalty card", "Student", "Club", "Streaming",
+            "Airline", "Hotel", "Telecom", "Insurance", "Bank account", "Auto club"
+    };
+
+    static final String[] REGIONS = {
+            "Canada", "Ontario", "Ottawa", "Toronto", "Quebec", "Montreal", "British Columbia",
+            "Vancouver", "Alberta", "Calgary", "Edmonton", "Nova Scotia", "Halifax", "Manitoba",
+            "Winnipeg", "United States", "New York", "California", "Texas", "Florida", "Europe",
+            "United Kingdom", "London", "France", "Paris", "Germany", "Berlin", "Global"
+    };
+
+    static final int MEMBERSHIPS = 36;
+    static final int PRODUCTS = 200;
+    static final int ACCOUNTS = 50;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+    private final int perkCount;
+
+    private BenchmarkCatalog(ConfigurableApplicationContext context, int perkCount) {
+        this.context = context;
+        this.perkCount = perkCount;
+    }
+
+    /**
+     * Starts the application and inserts {@code perkCount} perks.
+     *
+     * @param perkCount the number of perks in the catalog
+     * @return the running catalog
+     */
+    static BenchmarkCatalog start(int perkCount) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PerkmanagerApplication.class)
+                // Passed as arguments so they override application.properties
+                .run(
+                        // Unique name per fork so catalogs never share a database
+                        "--spring.datasource.url=jdbc:h2:mem:perks-" + System.nanoTime()
+                                + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                                + SimulatedRoundTrip.class.getName(),
+                        "--spring.devtools.restart.enabled=false",
+                        // Keep the production defaults DevTools would override, e.g. the template cache
+                        "--spring.devtools.add-properties=false",
+                        "--spring.main.banner-mode=off",
+                        // Security and MVC need a servlet context; a random port keeps forks from clashing
+                        "--server.port=0",
+                        "--logging.level.root=WARN",
+                        "--perkmanager.votes.journal-file=target/benchmark-vote-journal.log");
+
+        BenchmarkCatalog catalog = new BenchmarkCatalog(context, perkCount);
+        catalog.populate();
+        return catalog;
+    }
+
+    /**
+     * Returns a bean from the running application.
+     *
+     * @param type the bean type
+     * @param <T>  the bean type
+     * @return the bean
+     */
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * @return the number of perks in the catalog
+     */
+    int perkCount() {
+        return perkCount;
+    }
+
+    private void populate() {
+        JdbcTemplate jdbc = bean(JdbcTemplate.class);
+        Random random = new Random(42);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= MEMBERSHIPS; i++) {
+            rows.add(new Object[]{(long) i, MEMBERSHIP_TYPES[i % MEMBERSHIP_TYPES.length], "Org " + i, "Membership " + i});
+        }
+        jdbc.batchUpdate("INSERT INTO memberships (id, type, org_name, description) VALUES (?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= PRODUCTS; i++) {
+            rows.add(new Object[]{(long) i, "Product " + i, "Description of product " + i, "Company " + (i % 40)});
+        }
+        jdbc.batchUpdate("INSERT INTO products (id, name, description, company) VALUES (?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= ACCOUNTS; i++) {
+            rows.add(new Object[]{(long) i, "user" + i, "{noop}password"});
+        }
+        jdbc.batchUpdate("INSERT INTO accounts (id, username, password) VALUES (?, ?, ?)", rows);
+
+        long now = System.currentTimeMillis();
+        rows.clear();
+        for (int i = 1; i <= perkCount; i++) {
+            // About a third of perks never expire; the rest expire between 30 days ago and a year from now
+            Timestamp expiry = random.nextInt(3) == 0
+                    ? null
+                    : new Timestamp(now + TimeUnit.DAYS.toMillis(random.nextInt(395) - 30));
+            int up = random.nextInt(50);
+            int down = random.nextInt(20);
+            rows.add(new Object[]{
+                    (long) i,
+                    "Benefit " + i + ": " + (5 + random.nextInt(45)) + "% off",
+                    expiry,
+                    REGIONS[random.nextInt(REGIONS.length)],
+                    1L + random.nextInt(MEMBERSHIPS),
+                    1L + random.nextInt(PRODUCTS),
+                    1L + random.nextInt(ACCOUNTS),
+                    up, down, up - down,
+                    // Marked as PerkExpiryService would have at startup
+                    expiry != null && expiry.getTime() <= now
+            });
+            if (rows.size() == BATCH_SIZE) {
+                insertPerks(jdbc, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) insertPerks(jdbc, rows);
+        jdbc.execute("ANALYZE");
+    }
+
+    private static void insertPerks(JdbcTemplate jdbc, List<Object[]> rows) {
+        jdbc.batchUpdate("INSERT INTO perks (id, benefit, expiry_date, region, membership_id, product_id, creator_id, " +
+                "upvote_count, downvote_count, score, expired) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
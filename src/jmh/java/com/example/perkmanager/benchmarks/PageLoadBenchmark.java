@@ -0,0 +1,87 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.controllers.HomeController;
+import com.example.perkmanager.controllers.PerkController;
+import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
+import com.example.perkmanager.services.PerkLeaderboardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the data loading of the home page and the perks page, from the controller down
+ * to the database, without rendering. Every SQL statement waits {@code roundTripMs} first
+ * (see {@link SimulatedRoundTrip}), so the benchmark shows how much of a request is spent
+ * waiting on the database one query after another.
+ * <p>
+ * The database is an in-memory H2, and the round trip is a fixed sleep added by
+ * {@link SimulatedRoundTrip}, not a measured network or PostgreSQL latency. The numbers
+ * compare query counts and overlap between versions of the code; they are not a
+ * prediction of page times against the real database.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageLoadBenchmark {
+
+    @Param({"0", "2"})
+    public long roundTripMs;
+
+    private BenchmarkCatalog catalog;
+    private HomeController homeController;
+    private PerkController perkController;
+    private CurrentAccount currentAccount;
+    private CsrfToken csrfToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(1000);
+        // The catalog is inserted after startup, so the home-page orderings are built again
+        catalog.bean(PerkLeaderboardService.class).rebuild();
+        homeController = catalog.bean(HomeController.class);
+        perkController = catalog.bean(PerkController.class);
+        currentAccount = catalog.bean(AccountService.class).findCurrentAccount("user1").orElseThrow();
+        csrfToken = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "token");
+        SimulatedRoundTrip.set(roundTripMs);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SimulatedRoundTrip.set(0);
+        catalog.close();
+    }
+
+    @Benchmark
+    public ExtendedModelMap index() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        homeController.index(0, 0, model);
+        return model;
+    }
+
+    @Benchmark
+    public ExtendedModelMap listPerksGuest() {
+        return listPerks(null);
+    }
+
+    @Benchmark
+    public ExtendedModelMap listPerksAccount() {
+        return listPerks(currentAccount);
+    }
+
+    private ExtendedModelMap listPerks(CurrentAccount account) {
+        ExtendedModelMap model = new ExtendedModelMap();
+        perkController.listPerks(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of("rating"), Optional.of("desc"), Optional.empty(), Optional.of(20),
+                Optional.empty(), account, csrfToken, model);
+        return model;
+    }
+}
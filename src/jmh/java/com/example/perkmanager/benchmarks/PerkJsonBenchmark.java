@@ -0,0 +1,55 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.controllers.PerkController;
+import com.example.perkmanager.dto.PerkPageDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and serializing one page of the {@code /perks/data} JSON response
+ * for a guest, including the page query.
+ * Run with {@code -prof gc} (the profile default) to see allocation per page.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerkJsonBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private BenchmarkCatalog catalog;
+    private PerkController perkController;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize);
+        perkController = catalog.bean(PerkController.class);
+        objectMapper = catalog.bean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public String topRatedPage() throws JsonProcessingException {
+        PerkPageDto body = perkController.perksData(Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.of("rating"), Optional.of("desc"),
+                Optional.of(0), Optional.of(pageSize), Optional.empty(), null);
+        return objectMapper.writeValueAsString(body);
+    }
+}
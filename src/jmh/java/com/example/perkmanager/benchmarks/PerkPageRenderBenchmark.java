@@ -0,0 +1,115 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.security.AccountPrincipal;
+import com.example.perkmanager.services.PerkAccountStates;
+import com.example.perkmanager.services.PerkService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the perks page template for one page of perks, for a guest and for a
+ * logged-in account with some votes and saves. The perks are loaded once from the catalog,
+ * so only the Thymeleaf stage is measured, and every page shows the same data version.
+ * Run with {@code -prof gc} (the profile default) to see allocation per page.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerkPageRenderBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"guest", "account"})
+    public String viewer;
+
+    private BenchmarkCatalog catalog;
+    private MockServletContext servletContext;
+    private View view;
+    private Map<String, Object> model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        catalog = BenchmarkCatalog.start(1000);
+        PerkService perkService = catalog.bean(PerkService.class);
+        List<Perk> perks = perkService.filterPerks(Optional.empty(), Optional.empty(), Optional.of(false),
+                        Optional.empty(), Optional.empty(),
+                        perkService.pageRequest(0, pageSize, Optional.of("rating"), Optional.of("desc")))
+                .getContent();
+
+        boolean isAuthenticated = viewer.equals("account");
+        PerkAccountStates accountStates = PerkAccountStates.none();
+        if (isAuthenticated) {
+            Map<Long, Integer> voteStates = new HashMap<>();
+            Map<Long, Integer> saveStates = new HashMap<>();
+            for (int i = 0; i < perks.size(); i++) {
+                if (i % 3 == 0) voteStates.put(perks.get(i).getId(), i % 2 == 0 ? 1 : -1);
+                if (i % 4 == 0) saveStates.put(perks.get(i).getId(), 1);
+            }
+            accountStates = new PerkAccountStates(voteStates, saveStates);
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    new AccountPrincipal(1L, "user1", "", List.of()), null, List.of()));
+        }
+
+        // The same attributes PerkController puts in the model
+        model = new HashMap<>();
+        model.put("perks", perks);
+        model.put("saveStates", accountStates.saveStates());
+        model.put("voteStates", accountStates.voteStates());
+        model.put("isAuthenticated", isAuthenticated);
+        model.put("membershipType", "");
+        model.put("membershipTypes", List.of(BenchmarkCatalog.MEMBERSHIP_TYPES));
+        model.put("region", "");
+        model.put("q", "");
+        model.put("expiryOnly", false);
+        model.put("sort", "rating");
+        model.put("direction", "desc");
+        model.put("page", 0);
+        model.put("size", pageSize);
+        model.put("totalPages", 1000 / pageSize);
+        model.put("totalPerks", 1000L);
+        model.put("nextCursor", null);
+        model.put("myMembershipsOnly", false);
+        model.put("pagerStart", 0);
+        model.put("pagerEnd", 2);
+        model.put("perksJson", "[]");
+        model.put("perksPageJson", "{}");
+
+        servletContext = new MockServletContext();
+        view = catalog.bean(ThymeleafViewResolver.class).resolveViewName("perks", Locale.ENGLISH);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        catalog.close();
+    }
+
+    @Benchmark
+    public String renderPage() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/perks");
+        // A new token per request, as Spring Security masks the session token for each request
+        request.setAttribute(CsrfToken.class.getName(), new DefaultCsrfToken(
+                "X-CSRF-TOKEN", "_csrf", UUID.randomUUID().toString()));
+        request.setAttribute("_csrf", request.getAttribute(CsrfToken.class.getName()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+        return response.getContentAsString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.services.PerkCursor;
+import com.example.perkmanager.services.PerkService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the filtered, sorted and paginated perk query behind {@code /perks}.
+ * <p>
+ * Each combination of catalog size, filter and sort key loads both the first page and
+ * a page deep into the results, since deep pages pay for the offset. The deep page is also
+ * loaded from the cursor of the page before it, the way the pager's "Next" link reads it.
+ * When every match fits on one page, the deep page is the first page and is read without a cursor.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerkQueryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"none", "type", "region", "expiry", "combined"})
+    public String filter;
+
+    @Param({"id", "rating", "expiry"})
+    public String sort;
+
+    private BenchmarkCatalog catalog;
+    private PerkService perkService;
+
+    private Optional<String> membershipType;
+    private Optional<String> region;
+    private Optional<Boolean> expiryOnly;
+    private int deepPage;
+    private Optional<PerkCursor> deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize);
+        try {
+            perkService = catalog.bean(PerkService.class);
+
+            boolean combined = filter.equals("combined");
+            membershipType = filter.equals("type") || combined ? Optional.of("Credit card") : Optional.empty();
+            region = filter.equals("region") || combined ? Optional.of("on") : Optional.empty();
+            expiryOnly = Optional.of(filter.equals("expiry") || combined);
+
+            // Roughly the middle of the result set, so the deep page always has rows when there are any
+            long matches = query(0).getTotalElements();
+            deepPage = (int) ((matches - 1) / PAGE_SIZE / 2);
+            deepCursor = deepPage > 0 ? perkService.nextCursor(query(deepPage - 1)) : Optional.empty();
+        } catch (RuntimeException | Error e) {
+            // TearDown does not run after a failed setUp, and the open context would keep the fork alive
+            catalog.close();
+            throw e;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public Page<Perk> firstPage() {
+        return query(0);
+    }
+
+    @Benchmark
+    public Page<Perk> deepPage() {
+        return query(deepPage);
+    }
+
+    @Benchmark
+    public Page<Perk> deepPageByCursor() {
+        if (deepCursor.isEmpty()) return query(deepPage);
+        return perkService.filterPerksAfter(membershipType, region, expiryOnly, Optional.empty(), Optional.empty(),
+                perkService.pageRequest(deepPage, PAGE_SIZE, Optional.of(sort), Optional.of("desc")), deepCursor.get());
+    }
+
+    private Page<Perk> query(int page) {
+        return perkService.filterPerks(membershipType, region, expiryOnly, Optional.empty(), Optional.empty(),
+                perkService.pageRequest(page, PAGE_SIZE, Optional.of(sort), Optional.of("desc")));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.services.PerkSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures keyword search over a synthetic catalog of up to a million perks, comparing a
+ * {@link PerkSearchIndex} lookup with a scan that checks every perk's text for each word,
+ * which is what a {@code LIKE '%word%'} filter does row by row.
+ * <p>
+ * The queries range from one rare word combined with a word every perk has, to several
+ * common words that each match thousands of perks.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PerkSearchBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"benefit 77777", "company 7", "company 7 toronto", "airline toronto"})
+    public String query;
+
+    private PerkSearchIndex index;
+    private String[] texts;
+    private String[] words;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new PerkSearchIndex(null, "memory");
+        texts = new String[catalogSize];
+        // Same vocabulary and seed as BenchmarkCatalog
+        Random random = new Random(42);
+        for (int i = 1; i <= catalogSize; i++) {
+            int membership = 1 + random.nextInt(BenchmarkCatalog.MEMBERSHIPS);
+            int product = 1 + random.nextInt(BenchmarkCatalog.PRODUCTS);
+            String benefit = "Benefit " + i + ": " + (5 + random.nextInt(45)) + "% off";
+            String region = BenchmarkCatalog.REGIONS[random.nextInt(BenchmarkCatalog.REGIONS.length)];
+            String productName = "Product " + product;
+            String company = "Company " + (product % 40);
+            String type = BenchmarkCatalog.MEMBERSHIP_TYPES[membership % BenchmarkCatalog.MEMBERSHIP_TYPES.length];
+            String organization = "Org " + membership;
+
+            index.add(i, region, benefit, productName, company, type, organization);
+            texts[i - 1] = String.join(" ", benefit, region, productName, company, type, organization)
+                    .toLowerCase(Locale.ROOT);
+        }
+        words = query.toLowerCase(Locale.ROOT).split(" ");
+    }
+
+    @Benchmark
+    public long[] invertedIndex() {
+        return index.search(query);
+    }
+
+    @Benchmark
+    public int textScan() {
+        int matches = 0;
+        for (String text : texts) {
+            boolean all = true;
+            for (String word : words) {
+                if (!text.contains(word)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) matches++;
+        }
+        return matches;
+    }
+}
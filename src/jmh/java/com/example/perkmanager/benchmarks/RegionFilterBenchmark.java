@@ -0,0 +1,63 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.services.PerkSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the case-insensitive region substring filter over a million perks, comparing the
+ * trigram lookup of {@link PerkSearchIndex} with a stream filter that lowercases every perk's
+ * region on every request.
+ * <p>
+ * "anada" and "toronto" each match one region in {@link BenchmarkCatalog#REGIONS}, "united"
+ * matches two, and "on" is too short to have a trigram, so the index falls back to checking
+ * every region.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RegionFilterBenchmark {
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"anada", "toronto", "united", "on"})
+    public String region;
+
+    private PerkSearchIndex index;
+    private String[] regions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new PerkSearchIndex(null, "memory");
+        regions = new String[catalogSize];
+        Random random = new Random(42);
+        for (int i = 1; i <= catalogSize; i++) {
+            // A separate String per perk, as each loaded entity has its own
+            String value = new String(BenchmarkCatalog.REGIONS[random.nextInt(BenchmarkCatalog.REGIONS.length)]);
+            regions[i - 1] = value;
+            index.add(i, value);
+        }
+    }
+
+    @Benchmark
+    public long[] trigramIndex() {
+        return index.search(null, region);
+    }
+
+    @Benchmark
+    public long[] streamFilter() {
+        String lower = region.toLowerCase();
+        return IntStream.range(0, regions.length)
+                .filter(i -> regions[i] != null && regions[i].toLowerCase().contains(lower))
+                .mapToLong(i -> i + 1L)
+                .toArray();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.model.Account;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.utils.LongHashSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking the saved state of one page of perks against an account's saved perks,
+ * comparing {@link Account#hasPerk} (a scan of the entity collection) with a {@link LongHashSet}
+ * of IDs, for accounts with a few to thousands of saved perks.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SavedPerkLookupBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int savedPerks;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private Account account;
+    private LongHashSet savedIds;
+    private long[] pageIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        account = new Account();
+        savedIds = new LongHashSet(savedPerks);
+        // Every other perk is saved, so about half the page is a hit
+        for (long id = 1; id <= savedPerks; id++) {
+            Perk perk = new Perk();
+            perk.setId(id * 2);
+            account.addPerkToProfile(perk);
+            savedIds.add(id * 2);
+        }
+        pageIds = new long[pageSize];
+        for (int i = 0; i < pageSize; i++) {
+            pageIds[i] = (long) savedPerks - pageSize + i;
+        }
+    }
+
+    @Benchmark
+    public void entityScan(Blackhole blackhole) {
+        for (long id : pageIds) blackhole.consume(account.hasPerk(id));
+    }
+
+    @Benchmark
+    public void idHashSet(Blackhole blackhole) {
+        for (long id : pageIds) blackhole.consume(savedIds.contains(id));
+    }
+}
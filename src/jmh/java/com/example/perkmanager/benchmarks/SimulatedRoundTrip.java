@@ -0,0 +1,38 @@
+package com.example.perkmanager.benchmarks;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hibernate statement inspector that waits before every SQL statement, so the in-memory
+ * H2 database answers with the network round trip of a remote PostgreSQL server.
+ * Installed by {@link BenchmarkCatalog}; waits nothing until {@link #set} is called.
+ *
+ */
+public class SimulatedRoundTrip implements StatementInspector {
+
+    private static volatile long nanos;
+
+    /**
+     * Sets the wait added to every statement from now on.
+     *
+     * @param millis the round trip in milliseconds, or 0 for none
+     */
+    static void set(long millis) {
+        nanos = millis * 1_000_000L;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long wait = nanos;
+        if (wait > 0) {
+            long end = System.nanoTime() + wait;
+            // Parks rather than spins, as a thread waiting on a socket would
+            for (long left = wait; left > 0; left = end - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+        }
+        return sql;
+    }
+}
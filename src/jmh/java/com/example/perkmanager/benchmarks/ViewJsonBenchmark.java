@@ -0,0 +1,120 @@
+package com.example.perkmanager.benchmarks;
+
+import com.example.perkmanager.dto.PageSession;
+import com.example.perkmanager.dto.PerkDto;
+import com.example.perkmanager.dto.PerkPageHeader;
+import com.example.perkmanager.model.Membership;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.model.Product;
+import com.example.perkmanager.services.PerkAccountStates;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the JSON embedded in the perks page for one page of perks, comparing a
+ * new {@link ObjectMapper} per request with a map per perk (and the CSRF token on the page map)
+ * against {@link PerkDto} records written by typed writers derived once from a shared mapper.
+ * The perks are built in memory, so only the JSON stage is measured.
+ * Run with {@code -prof gc} (the profile default) to see allocation per page.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewJsonBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private List<Perk> perks;
+    private PerkAccountStates accountStates;
+    private CsrfToken csrfToken;
+    private ObjectWriter perksWriter;
+    private ObjectWriter pageHeaderWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Membership membership = new Membership("Card", "Visa", "Visa Infinite");
+        Product product = new Product("Movie", "Cinema");
+        product.setDescription("Any evening screening");
+        perks = new ArrayList<>(pageSize);
+        Map<Long, Integer> voteStates = new HashMap<>();
+        Map<Long, Integer> saveStates = new HashMap<>();
+        for (int i = 0; i < pageSize; i++) {
+            Perk perk = new Perk(membership, product, "Perk benefit " + i);
+            perk.setId((long) i);
+            perk.setRegion("Canada");
+            perk.setExpiryDate(Calendar.getInstance());
+            perks.add(perk);
+            if (i % 3 == 0) voteStates.put((long) i, 1);
+            if (i % 2 == 0) saveStates.put((long) i, 1);
+        }
+        accountStates = new PerkAccountStates(voteStates, saveStates);
+        csrfToken = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", UUID.randomUUID().toString());
+
+        ObjectWriter viewJsonWriter = new ObjectMapper().writer();
+        perksWriter = viewJsonWriter.forType(new TypeReference<List<PerkDto>>() { });
+        pageHeaderWriter = viewJsonWriter.forType(PerkPageHeader.class);
+    }
+
+    @Benchmark
+    public void mapsWithNewMapper(Blackhole blackhole) throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Map<String, Object>> perksJson = new ArrayList<>();
+        for (Perk p : perks) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", p.getId());
+            map.put("benefit", p.getBenefit());
+            map.put("rating", p.getRating());
+            map.put("expiryDate", p.getExpiryDate() != null ? p.getExpiryDate().getTime() : null);
+            map.put("region", p.getRegion());
+            map.put("membership", Map.of(
+                    "type", p.getMembership().getType(),
+                    "description", p.getMembership().getDescription(),
+                    "organizationName", p.getMembership().getOrganizationName()));
+            map.put("product", Map.of(
+                    "name", p.getProduct().getName(),
+                    "company", p.getProduct().getCompany(),
+                    "description", p.getProduct().getDescription()));
+            map.put("saveState", accountStates.saveState(p.getId()));
+            map.put("voteState", accountStates.voteState(p.getId()));
+            perksJson.add(map);
+        }
+        blackhole.consume(mapper.writeValueAsString(perksJson));
+
+        Map<String, Object> pageJson = new HashMap<>();
+        pageJson.put("nextCursor", null);
+        pageJson.put("page", 0);
+        pageJson.put("size", pageSize);
+        pageJson.put("totalPages", 1);
+        pageJson.put("totalPerks", (long) pageSize);
+        pageJson.put("isAuthenticated", true);
+        pageJson.put("csrfParam", csrfToken.getParameterName());
+        pageJson.put("csrfToken", csrfToken.getToken());
+        pageJson.put("csrfHeader", csrfToken.getHeaderName());
+        blackhole.consume(mapper.writeValueAsString(pageJson));
+    }
+
+    @Benchmark
+    public void dtosWithSharedWriter(Blackhole blackhole) throws JsonProcessingException {
+        List<PerkDto> dtos = new ArrayList<>(perks.size());
+        for (Perk perk : perks) {
+            dtos.add(PerkDto.from(perk, accountStates));
+        }
+        blackhole.consume(perksWriter.writeValueAsString(dtos));
+        blackhole.consume(pageHeaderWriter.writeValueAsString(new PerkPageHeader(
+                0, pageSize, 1, pageSize, null, PageSession.of(true, csrfToken))));
+    }
+}
@@ -4,6 +4,7 @@ import com.example.perkmanager.security.AccountDetailsService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -17,6 +18,8 @@ public class SecurityConfig {
         http
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/perks/add").authenticated() //require logged in to create perks
+                        .requestMatchers("/actuator/health").permitAll() //health checks stay public
+                        .requestMatchers("/actuator/**").authenticated() //metrics and stage timings need a login
                         .requestMatchers("/perks/*").permitAll() //avoid csrf issues with js
                         .anyRequest().permitAll() //allow access to all other urls
                 )
@@ -35,6 +38,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @Bean
+    public WebSecurityCustomizer staticAssets() {
+        //the site's CSS and JS are public and cached by browsers, so skip the security filters for them
+        return web -> web.ignoring().requestMatchers("/css/**", "/js/**");
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
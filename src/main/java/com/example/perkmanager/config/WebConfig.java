@@ -0,0 +1,110 @@
+package com.example.perkmanager.config;
+
+import com.example.perkmanager.controllers.ConditionalGetInterceptor;
+import com.example.perkmanager.metrics.RenderTimingInterceptor;
+import com.example.perkmanager.metrics.StageTimers;
+import com.example.perkmanager.security.CurrentAccountArgumentResolver;
+import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.DataVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Spring MVC configuration.
+ * Resolves {@link com.example.perkmanager.services.CurrentAccount} controller parameters,
+ * answers conditional GETs of the list pages and their JSON from the {@link DataVersion},
+ * times view rendering for the pages whose other stages are timed by their controllers,
+ * and provides the shared writer the page controllers embed their JSON with.
+ * <p>
+ * The site's own CSS and JS are served under content-hash URLs (e.g.
+ * {@code /css/styles-<md5>.css}, written by {@code @{...}} links in the templates) that browsers
+ * may keep for a year without checking back, from the gzip and brotli copies made at build time
+ * when the browser accepts them.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /** Static asset folders served under content-hash URLs. */
+    static final List<String> ASSET_DIRECTORIES = List.of("css", "js");
+
+    /** How long browsers keep a fingerprinted asset; a changed file gets a new URL instead. */
+    static final Duration ASSET_MAX_AGE = Duration.ofDays(365);
+
+    private final StageTimers stageTimers;
+    private final AccountService accountService;
+    private final DataVersion dataVersion;
+    private final WebProperties webProperties;
+
+    public WebConfig(StageTimers stageTimers, AccountService accountService, DataVersion dataVersion,
+                     WebProperties webProperties) {
+        this.stageTimers = stageTimers;
+        this.accountService = accountService;
+        this.dataVersion = dataVersion;
+        this.webProperties = webProperties;
+    }
+
+    /**
+     * Rewrites asset links built by the templates to their content-hash URLs.
+     *
+     * @return the filter
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    /**
+     * The writer for JSON embedded in rendered pages. It shares the application's object mapper
+     * and its serializer caches; controllers derive a writer per DTO type from it once, at
+     * construction, so no mapper or serializer is built per request.
+     *
+     * @param objectMapper the application's object mapper
+     * @return the shared writer
+     */
+    @Bean
+    public ObjectWriter viewJsonWriter(ObjectMapper objectMapper) {
+        return objectMapper.writer();
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // Resolved hashes are cached unless spring.web.resources.chain.cache is off (as with devtools)
+        boolean cacheResources = webProperties.getResources().getChain().isCache();
+        for (String directory : ASSET_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.maxAge(ASSET_MAX_AGE).cachePublic().immutable())
+                    .resourceChain(cacheResources)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentAccountArgumentResolver(accountService, stageTimers));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // First, so that a 304 skips the other interceptors as well as the controller
+        registry.addInterceptor(new ConditionalGetInterceptor(dataVersion))
+                .addPathPatterns("/perks", "/perks/data", "/api/perks", "/memberships", "/products");
+        registry.addInterceptor(new RenderTimingInterceptor(stageTimers))
+                .addPathPatterns("/", "/perks", "/profile");
+    }
+}
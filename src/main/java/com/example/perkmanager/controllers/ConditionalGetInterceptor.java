@@ -0,0 +1,84 @@
+package com.example.perkmanager.controllers;
+
+import com.example.perkmanager.security.AccountPrincipal;
+import com.example.perkmanager.services.DataVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.Objects;
+
+/**
+ * Answers conditional GETs of the perk, membership and product lists from the {@link DataVersion}.
+ * <p>
+ * Each response gets a weak ETag made of the data version and the viewer, and the time of the
+ * last change as Last-Modified. When the browser sends back a matching ETag the request ends here
+ * with a 304, before the controller runs, so no account, perk or membership is loaded.
+ * The viewer part covers the account and the session, because the pages show the viewer's votes
+ * and saves and carry the session's CSRF token.
+ * <p>
+ * Responses are marked {@code private, no-cache}: browsers keep them but check back every time,
+ * and shared caches do not store them.
+ *
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final DataVersion dataVersion;
+
+    /**
+     * Constructs a ConditionalGetInterceptor.
+     *
+     * @param dataVersion the version of the page data
+     */
+    public ConditionalGetInterceptor(DataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        // Read the version first: a change between the two reads then only makes Last-Modified newer
+        long version = dataVersion.current();
+        long lastModified = dataVersion.lastModified();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        // Sets the ETag and Last-Modified headers, and the 304 status when the browser's copy is current
+        return !new ServletWebRequest(request, response).checkNotModified(etag(version, request), lastModified);
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        // A page showing a load error must not be revalidated as current until the data changes
+        if (modelAndView != null && modelAndView.getModel().containsKey("error")) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        }
+    }
+
+    /**
+     * Builds the weak ETag of a page for the current viewer.
+     */
+    static String etag(long version, HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Object account = null;
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            account = auth.getPrincipal() instanceof AccountPrincipal principal
+                    ? principal.getAccountId() : auth.getName();
+        }
+        HttpSession session = request.getSession(false);
+        int viewer = Objects.hash(account, session != null ? session.getId() : null);
+        return "W/\"" + version + "-" + Integer.toHexString(viewer) + "\"";
+    }
+}
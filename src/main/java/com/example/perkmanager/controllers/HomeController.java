@@ -1,14 +1,16 @@
 package com.example.perkmanager.controllers;
 
+import com.example.perkmanager.metrics.StageTimers;
 import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.services.ParallelLoads;
+import com.example.perkmanager.services.PerkLeaderboardService;
 import com.example.perkmanager.services.PerkService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
 
 /**
  * Controller responsible for rendering the home page.
@@ -18,19 +20,36 @@ import java.util.stream.Collectors;
  *     <li>Top-rated perks (sorted by rating descending, then by expiry date ascending).</li>
  *     <li>Soon-to-expire perks (sorted by expiry date ascending, then by rating descending).</li>
  * </ul>
+ * Both orderings are kept by {@link PerkLeaderboardService}; only the perks on the
+ * requested pages are loaded from the database, both sections at the same time.
+ * If the expiring perks fail to load or time out, that section is shown empty with an
+ * error message and the rest of the page is still rendered.
  */
 @Controller
 public class HomeController {
 
+    /** Number of perks shown per page in each section. */
+    static final int PAGE_SIZE = 4;
+
     private final PerkService perkService;
+    private final PerkLeaderboardService leaderboardService;
+    private final StageTimers stageTimers;
+    private final ParallelLoads parallelLoads;
 
     /**
-     * Creates a new {@code HomeController} with the required {@link PerkService}.
+     * Creates a new {@code HomeController} with the required services.
      *
-     * @param perkService service used to retrieve and manipulate {@link Perk} data
+     * @param perkService        service used to retrieve and manipulate {@link Perk} data
+     * @param leaderboardService service that keeps the top-rated and expiring orderings
+     * @param stageTimers        timers for the leaderboard and perk loading stages
+     * @param parallelLoads      runs the loads of the two sections at the same time
      */
-    public HomeController(PerkService perkService) {
+    public HomeController(PerkService perkService, PerkLeaderboardService leaderboardService,
+                          StageTimers stageTimers, ParallelLoads parallelLoads) {
         this.perkService = perkService;
+        this.leaderboardService = leaderboardService;
+        this.stageTimers = stageTimers;
+        this.parallelLoads = parallelLoads;
     }
 
     /**
@@ -43,7 +62,8 @@ public class HomeController {
      *     expiry date, then by rating (desc).</li>
      * </ul>
      * Pagination information for each section (current page and total pages) is
-     * also added to the model.
+     * also added to the model. When the expiring perks cannot be loaded, the section
+     * is empty and <b>expiringError</b> holds the reason.
      *
      * @param topPage index of the page to display for top-rated perks (0-based)
      * @param expPage index of the page to display for expiring perks (0-based)
@@ -56,36 +76,32 @@ public class HomeController {
             @RequestParam(value = "expPage", defaultValue = "0") int expPage,
             Model model) {
 
-        int pageSize = 4;
-        List<Perk> allPerks = perkService.getAllPerks();
+        long leaderboardStart = System.nanoTime();
 
         // Top-rated perks with secondary sort by expiry
-        List<Perk> topRated = allPerks.stream()
-                .sorted(
-                        Comparator.comparingInt(Perk::getRating).reversed()
-                                .thenComparing(
-                                        p -> p.getExpiryDate() != null ? p.getExpiryDate().getTime() : new Date(Long.MAX_VALUE)
-                                )
-                )
-                .collect(Collectors.toList());
-        int topTotalPages = (int) Math.ceil((double) topRated.size() / pageSize);
-        int topStart = topPage * pageSize;
-        int topEnd = Math.min(topStart + pageSize, topRated.size());
-        List<Perk> featuredTopRated = topRated.subList(topStart, topEnd);
+        List<Long> topIds = leaderboardService.topRated(topPage, PAGE_SIZE);
+        int topTotalPages = (int) Math.ceil((double) leaderboardService.topRatedCount() / PAGE_SIZE);
 
         // Soon-to-expire perks with secondary sort by rating
-        Calendar now = Calendar.getInstance();
-        List<Perk> expiringSoon = allPerks.stream()
-                .filter(p -> p.getExpiryDate() != null && p.getExpiryDate().after(now))
-                .sorted(
-                        Comparator.comparing((Perk p) -> p.getExpiryDate().getTime()) // specify Perk type
-                                .thenComparing(Comparator.comparingInt(Perk::getRating).reversed())
-                )
-                .collect(Collectors.toList());
-        int expTotalPages = (int) Math.ceil((double) expiringSoon.size() / pageSize);
-        int expStart = expPage * pageSize;
-        int expEnd = Math.min(expStart + pageSize, expiringSoon.size());
-        List<Perk> featuredExpiring = expiringSoon.subList(expStart, expEnd);
+        List<Long> expIds = leaderboardService.expiringSoon(expPage, PAGE_SIZE);
+        int expTotalPages = (int) Math.ceil((double) leaderboardService.expiringCount() / PAGE_SIZE);
+
+        stageTimers.record("/", "leaderboard", System.nanoTime() - leaderboardStart);
+
+        // The two sections are independent: the expiring perks load while the top-rated ones do
+        ParallelLoads.Load<List<Perk>> expiringLoad = parallelLoads.start("expiring perks",
+                () -> stageTimers.time("/", "expiringPerks", () -> perkService.findAllByIdInOrder(expIds)));
+        List<Perk> featuredTopRated = stageTimers.time("/", "topRatedPerks",
+                () -> perkService.findAllByIdInOrder(topIds));
+        List<Perk> featuredExpiring;
+        try {
+            featuredExpiring = expiringLoad.join();
+        } catch (RuntimeException e) {
+            // Only this section fails; the top-rated perks are still shown
+            e.printStackTrace();
+            featuredExpiring = List.of();
+            model.addAttribute("expiringError", "Failed to load expiring perks: " + e.getMessage());
+        }
 
         // Add attributes for Thymeleaf
         model.addAttribute("featuredTopRated", featuredTopRated);
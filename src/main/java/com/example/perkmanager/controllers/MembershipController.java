@@ -1,19 +1,22 @@
 package com.example.perkmanager.controllers;
 
+import com.example.perkmanager.dto.MembershipDto;
+import com.example.perkmanager.dto.PageSession;
 import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
 import com.example.perkmanager.services.MembershipService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Controller for handling membership-related operations such as
@@ -26,35 +29,39 @@ public class MembershipController {
 
     private final MembershipService membershipService;
     private final AccountService accountService;
+    private final ObjectWriter membershipsWriter;
+    private final ObjectWriter sessionWriter;
 
     /**
      * Constructs a MembershipController with required services.
      *
      * @param membershipService service used for membership CRUD operations
      * @param accountService    service used for user account operations
+     * @param viewJsonWriter    the shared writer for JSON embedded in pages
      */
-    public MembershipController(MembershipService membershipService, AccountService accountService) {
+    public MembershipController(MembershipService membershipService, AccountService accountService,
+                                ObjectWriter viewJsonWriter) {
         this.membershipService = membershipService;
         this.accountService = accountService;
+        this.membershipsWriter = viewJsonWriter.forType(new TypeReference<List<MembershipDto>>() { });
+        this.sessionWriter = viewJsonWriter.forType(PageSession.class);
     }
 
     /**
      * Lists all available memberships, along with user save-states if authenticated.
-     * Also prepares JSON metadata for dynamic frontend interactions.
+     * Also prepares JSON metadata for dynamic frontend interactions: one entry per membership,
+     * and the login state and CSRF token once for the page.
      *
-     * @param userDetails the current authenticated user (if any)
+     * @param currentUser the logged-in account, or null for guests
+     * @param csrfToken   the CSRF token of the current request
      * @param model       Spring model used to pass attributes to the view
      * @return the memberships view template
      */
     @GetMapping
-    public String listMemberships(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String listMemberships(CurrentAccount currentUser, CsrfToken csrfToken, Model model) {
         try {
-            final Account currentUser = (userDetails != null)
-                    ? accountService.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"))
-                    : null;
-
-            List<Membership> memberships = membershipService.getAllMemberships();
+            // The catalog list is shared and read-only, so sort a copy
+            List<Membership> memberships = new ArrayList<>(membershipService.getAllMemberships());
             memberships.sort(Comparator.comparing(Membership::getOrganizationName));
 
             Map<Long, Integer> saveStates = new HashMap<>();
@@ -68,35 +75,13 @@ public class MembershipController {
             model.addAttribute("memberships", memberships);
             model.addAttribute("isAuthenticated", currentUser != null);
 
-            ObjectMapper mapper = new ObjectMapper();
-            List<Map<String, Object>> membershipsJsonList = memberships.stream().map(m -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", m.getId());
-                map.put("type", m.getType());
-                map.put("organization", m.getOrganizationName());
-                map.put("description", m.getDescription());
-
-                int saveState = (currentUser != null && currentUser.hasMembership(m.getId())) ? 1 : 0;
-                map.put("saveState", saveState);
-
-                var csrf = model.getAttribute("_csrf");
-                if (csrf instanceof org.springframework.security.web.csrf.CsrfToken token) {
-                    map.put("csrfParam", "_csrf");
-                    map.put("csrfToken", token.getToken());
-                    map.put("csrfHeader", token.getHeaderName());
-                } else {
-                    map.put("csrfParam", "_csrf");
-                    map.put("csrfToken", "");
-                    map.put("csrfHeader", "");
-                }
-
-                map.put("isAuthenticated", currentUser != null);
-
-                return map;
-            }).collect(Collectors.toList());
-
-            String membershipsJson = mapper.writeValueAsString(membershipsJsonList);
-            model.addAttribute("membershipsJson", membershipsJson);
+            List<MembershipDto> membershipDtos = new ArrayList<>(memberships.size());
+            for (Membership m : memberships) {
+                membershipDtos.add(MembershipDto.from(m, saveStates.getOrDefault(m.getId(), 0)));
+            }
+            model.addAttribute("membershipsJson", membershipsWriter.writeValueAsString(membershipDtos));
+            model.addAttribute("membershipsPageJson",
+                    sessionWriter.writeValueAsString(PageSession.of(currentUser != null, csrfToken)));
 
             return "memberships";
         } catch (Exception e) {
@@ -0,0 +1,118 @@
+package com.example.perkmanager.controllers;
+
+import com.example.perkmanager.dto.PerkDto;
+import com.example.perkmanager.metrics.StageTimers;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.services.CurrentAccount;
+import com.example.perkmanager.services.PerkAccountStates;
+import com.example.perkmanager.services.PerkCursor;
+import com.example.perkmanager.services.PerkService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Read-only JSON API for perks, for mobile clients and integrations.
+ * <p>
+ * Takes the same filter, sort and paging parameters as the perks page, and writes the page
+ * straight to the response with a Jackson {@link JsonGenerator}: each perk goes through a
+ * {@link PerkDto} record, with no intermediate maps or JSON tree.
+ *
+ */
+@RestController
+@RequestMapping("/api/perks")
+public class PerkApiController {
+
+    private final PerkService perkService;
+    private final StageTimers stageTimers;
+    private final ObjectMapper objectMapper;
+    private final PerkPageLoader pageLoader;
+
+    /**
+     * Constructs a PerkApiController.
+     *
+     * @param perkService  the service for perk operations
+     * @param stageTimers  the timers for each stage of listing perks
+     * @param objectMapper the application's object mapper, whose factory creates the generators
+     */
+    public PerkApiController(PerkService perkService, StageTimers stageTimers, ObjectMapper objectMapper) {
+        this.perkService = perkService;
+        this.stageTimers = stageTimers;
+        this.objectMapper = objectMapper;
+        this.pageLoader = new PerkPageLoader(perkService, stageTimers);
+    }
+
+    /**
+     * Writes one page of perks as JSON:
+     * {@code {"page", "size", "totalPages", "totalPerks", "nextCursor", "perks": [...]}}.
+     * Pass {@code nextCursor} back as {@code after} (with {@code page + 1}) to read the next page
+     * by keyset; it is null on the last page and for relevance order.
+     *
+     * @param membershipType    optional filter by membership type
+     * @param region            optional filter by region
+     * @param expiryOnly        optional filter to show only expiring perks
+     * @param myMembershipsOnly optional filter to the perks of the logged-in account's memberships
+     * @param q                 optional free text to search perks for
+     * @param sort              optional sort field name ("rating", "expiry" or "relevance")
+     * @param direction         optional sort direction ("asc" or "desc")
+     * @param page              optional page number (0-indexed)
+     * @param size              optional page size (at most {@value PerkController#MAX_PAGE_SIZE})
+     * @param after             optional cursor of the last perk on the previous page
+     * @param currentAccount    the logged-in account, or null for guests
+     * @param response          the response the JSON is written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public void listPerks(
+            @RequestParam Optional<String> membershipType,
+            @RequestParam Optional<String> region,
+            @RequestParam Optional<Boolean> expiryOnly,
+            @RequestParam Optional<Boolean> myMembershipsOnly,
+            @RequestParam Optional<String> q,
+            @RequestParam Optional<String> sort,
+            @RequestParam Optional<String> direction,
+            @RequestParam Optional<Integer> page,
+            @RequestParam Optional<Integer> size,
+            @RequestParam Optional<String> after,
+            CurrentAccount currentAccount,
+            HttpServletResponse response) throws IOException {
+
+        Page<Perk> perkPage = pageLoader.load("/api/perks", membershipType, region, expiryOnly, myMembershipsOnly,
+                q, sort, direction, page, size, after, currentAccount);
+        PerkAccountStates accountStates = currentAccount != null
+                ? stageTimers.time("/api/perks", "accountStates",
+                        () -> perkService.getAccountStates(currentAccount.getId(), perkPage.getContent()))
+                : PerkAccountStates.none();
+        String nextCursor = perkService.nextCursor(perkPage).map(PerkCursor::toString).orElse(null);
+
+        long jsonStart = System.nanoTime();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator gen = objectMapper.getFactory()
+                .createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeNumberField("page", perkPage.getNumber());
+            gen.writeNumberField("size", perkPage.getSize());
+            gen.writeNumberField("totalPages", Math.max(perkPage.getTotalPages(), 1));
+            gen.writeNumberField("totalPerks", perkPage.getTotalElements());
+            gen.writeStringField("nextCursor", nextCursor);
+            gen.writeArrayFieldStart("perks");
+            for (Perk perk : perkPage) {
+                PerkDto.from(perk, accountStates).writeTo(gen);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        stageTimers.record("/api/perks", "json", System.nanoTime() - jsonStart);
+    }
+}
@@ -1,24 +1,37 @@
 package com.example.perkmanager.controllers;
 
+import com.example.perkmanager.dto.PageSession;
+import com.example.perkmanager.dto.PerkDto;
+import com.example.perkmanager.dto.PerkPageDto;
+import com.example.perkmanager.dto.PerkPageHeader;
+import com.example.perkmanager.metrics.StageTimers;
 import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.Product;
+import com.example.perkmanager.security.AccountPrincipal;
 import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
+import com.example.perkmanager.services.DataVersion;
 import com.example.perkmanager.services.MembershipService;
+import com.example.perkmanager.services.PerkAccountStates;
+import com.example.perkmanager.services.PerkCursor;
 import com.example.perkmanager.services.PerkService;
 import com.example.perkmanager.services.ProductService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Controller for handling perk-related operations.
@@ -30,10 +43,21 @@ import java.util.stream.Collectors;
 @RequestMapping("/perks")
 public class PerkController {
 
+    /** Largest page size a client may request. */
+    static final int MAX_PAGE_SIZE = 100;
+
+    /** Number of page links shown on each side of the current page in the pager. */
+    static final int PAGER_WINDOW = 2;
+
     private final PerkService perkService;
     private final ProductService productService;
     private final MembershipService membershipService;
     private final AccountService accountService;
+    private final StageTimers stageTimers;
+    private final PerkPageLoader pageLoader;
+    private final DataVersion dataVersion;
+    private final ObjectWriter perksWriter;
+    private final ObjectWriter pageHeaderWriter;
 
     /**
      * Constructs a PerkController with the specified services.
@@ -42,29 +66,52 @@ public class PerkController {
      * @param productService    the service for product operations
      * @param membershipService the service for membership operations
      * @param accountService    the service for account operations
+     * @param stageTimers       the timers for each stage of listing perks
+     * @param dataVersion       the version of the page data, which the cached perk rows are keyed by
+     * @param viewJsonWriter    the shared writer for JSON embedded in pages
      */
     public PerkController(PerkService perkService,
                           ProductService productService,
                           MembershipService membershipService,
-                          AccountService accountService) {
+                          AccountService accountService,
+                          StageTimers stageTimers,
+                          DataVersion dataVersion,
+                          ObjectWriter viewJsonWriter) {
         this.perkService = perkService;
         this.productService = productService;
         this.membershipService = membershipService;
         this.accountService = accountService;
+        this.stageTimers = stageTimers;
+        this.pageLoader = new PerkPageLoader(perkService, stageTimers);
+        this.dataVersion = dataVersion;
+        // Typed writers look up their serializers here, once, rather than on the first request
+        this.perksWriter = viewJsonWriter.forType(new TypeReference<List<PerkDto>>() { });
+        this.pageHeaderWriter = viewJsonWriter.forType(PerkPageHeader.class);
     }
 
     /**
      * Lists all perks with optional filtering, sorting, and pagination.
-     * Supports filtering by membership type, region, and expiry status.
-     * Supports sorting by various fields in ascending or descending order.
+     * Supports filtering by membership type, region, expiry status, and free-text search.
+     * Supports sorting by various fields in ascending or descending order; a search with no
+     * sort field is ordered by relevance.
+     * Only the current page is rendered and embedded as JSON; other pages are
+     * served by {@link #perksData}. The "Next" link carries a cursor to the last perk on the
+     * page, so the next page is read from the database by keyset rather than by offset.
+     * Rows are spliced in from the fragment cache when the perk has not changed since they were
+     * rendered for the same viewer state.
      *
      * @param membershipType optional filter by membership type
      * @param region         optional filter by region
      * @param expiryOnly     optional filter to show only expiring perks
+     * @param q              optional free text to search perks for
      * @param sort           optional sort field name
      * @param direction      optional sort direction ("asc" or "desc")
      * @param page           optional page number (0-indexed)
      * @param size           optional page size
+     * @param after          optional cursor of the last perk on the previous page (see {@link PerkCursor});
+     *                       {@code page} is then only used to number the page
+     * @param currentAccount the logged-in account, or null for guests
+     * @param csrfToken      the CSRF token of the current request, shared by every perk on the page
      * @param model          the Spring model for passing data to the view
      * @return the name of the perks template
      */
@@ -74,64 +121,47 @@ public class PerkController {
             @RequestParam Optional<String> region,
             @RequestParam Optional<Boolean> expiryOnly,
             @RequestParam Optional<Boolean> myMembershipsOnly,
+            @RequestParam Optional<String> q,
             @RequestParam Optional<String> sort,
             @RequestParam Optional<String> direction,
             @RequestParam Optional<Integer> page,
             @RequestParam Optional<Integer> size,
-            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Optional<String> after,
+            CurrentAccount currentAccount,
+            CsrfToken csrfToken,
             Model model) {
 
         try {
-            final Account currentUser = (userDetails != null)
-                    ? accountService.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"))
-                    : null;
-
-            Optional<Set<Membership>> userMemberships = myMembershipsOnly.orElse(false)
-                    ? Optional.of(accountService.findByUsername(userDetails.getUsername()).get().getMemberships())
-                    : Optional.empty();
-
-            List<Perk> perks = perkService.filterPerks(membershipType, region, expiryOnly, userMemberships);
-            perks = perkService.sortPerks(perks, sort, direction);
-
-            // Pagination
-            int pageNum = Math.max(page.orElse(0), 0);
-            int pageSize = Math.max(size.orElse(5), 1);
-            int total = perks.size();
-            int totalPages = (int) Math.ceil((double) total / pageSize);
-            if (totalPages == 0) totalPages = 1;
-            if (pageNum >= totalPages) pageNum = totalPages - 1;
-            int from = pageNum * pageSize;
-            int to = Math.min(from + pageSize, total);
-            List<Perk> pageItems = perks.subList(from, to);
+            final boolean isAuthenticated = currentAccount != null;
+
+            // Read before the perks are loaded, so rows rendered from data older than a change are never
+            // cached under the version that change produced
+            model.addAttribute("dataVersion", dataVersion.current());
+
+            Page<Perk> perkPage = pageLoader.load("/perks", membershipType, region, expiryOnly, myMembershipsOnly,
+                    q, sort, direction, page, size, after, currentAccount);
+            String nextCursor = perkService.nextCursor(perkPage).map(PerkCursor::toString).orElse(null);
+            int pageNum = perkPage.getNumber();
+            int pageSize = perkPage.getSize();
+            int totalPages = Math.max(perkPage.getTotalPages(), 1);
+            long total = perkPage.getTotalElements();
+            List<Perk> pageItems = perkPage.getContent();
 
             model.addAttribute("perks", pageItems);
 
-            Map<Long, Integer> saveStates = new HashMap<>();
-            Map<Long, Integer> voteStates = new HashMap<>();
-            if (currentUser != null) {
-
-                for (Perk p : pageItems) {
-                    //Handle save states
-                    if (currentUser.hasPerk(p.getId())) {
-                        saveStates.put(p.getId(), 1);
-                    } else {
-                        saveStates.put(p.getId(), 0);
-                    }
-                    //Handle vote states
-                    int voteState = 0;
-                    if (p.getUpvotedBy().stream().anyMatch(u -> u.getId().equals(currentUser.getId()))) voteState = 1;
-                    else if (p.getDownvotedBy().stream().anyMatch(u -> u.getId().equals(currentUser.getId())))
-                        voteState = -1;
-                    voteStates.put(p.getId(), voteState);
-                }
-            }
-            model.addAttribute("saveStates", saveStates);
-            model.addAttribute("voteStates", voteStates);
-            model.addAttribute("isAuthenticated", currentUser != null);
+            // Vote and save state for the whole page in one query
+            final PerkAccountStates accountStates = isAuthenticated
+                    ? stageTimers.time("/perks", "accountStates",
+                            () -> perkService.getAccountStates(currentAccount.getId(), pageItems))
+                    : PerkAccountStates.none();
+            model.addAttribute("saveStates", accountStates.saveStates());
+            model.addAttribute("voteStates", accountStates.voteStates());
+            model.addAttribute("isAuthenticated", isAuthenticated);
             model.addAttribute("membershipType", membershipType.orElse(""));
-            model.addAttribute("membershipTypes", membershipService.getAllMembershipTypes());
+            model.addAttribute("membershipTypes",
+                    stageTimers.time("/perks", "membershipTypes", membershipService::getAllMembershipTypes));
             model.addAttribute("region", region.orElse(""));
+            model.addAttribute("q", q.orElse(""));
             model.addAttribute("expiryOnly", expiryOnly.orElse(false));
             model.addAttribute("sort", sort.orElse(""));
             model.addAttribute("direction", direction.orElse("asc"));
@@ -139,60 +169,20 @@ public class PerkController {
             model.addAttribute("size", pageSize);
             model.addAttribute("totalPages", totalPages);
             model.addAttribute("totalPerks", total);
+            model.addAttribute("nextCursor", nextCursor);
             model.addAttribute("myMembershipsOnly", myMembershipsOnly.orElse(false));
+            // The pager links to the first and last page and a small window around the current one
+            model.addAttribute("pagerStart", Math.max(pageNum - PAGER_WINDOW, 0));
+            model.addAttribute("pagerEnd", Math.min(pageNum + PAGER_WINDOW, totalPages - 1));
 
+            long jsonStart = System.nanoTime();
+            // Only the visible page is embedded in the HTML
+            model.addAttribute("perksJson", perksWriter.writeValueAsString(perkDtos(pageItems, accountStates)));
 
-            ObjectMapper mapper = new ObjectMapper();
-
-            int finalPageNum = pageNum;
-            List<Map<String, Object>> perksJsonList = perks.stream().map(p -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", p.getId());
-                map.put("benefit", p.getBenefit());
-                map.put("rating", p.getRating());
-                map.put("expiryDate", p.getExpiryDate() != null ? p.getExpiryDate().getTime() : null);
-                map.put("region", p.getRegion());
-
-                if (p.getMembership() != null) {
-                    map.put("membership", Map.of(
-                            "type", p.getMembership().getType(),
-                            "description", p.getMembership().getDescription(),
-                            "organizationName", p.getMembership().getOrganizationName()
-                    ));
-                }
-
-                if (p.getProduct() != null) {
-                    map.put("product", Map.of(
-                            "name", p.getProduct().getName(),
-                            "company", p.getProduct().getCompany(),
-                            "description", p.getProduct().getDescription()
-                    ));
-                }
-                int saveState = 0;
-                if (currentUser != null) {
-                    if (currentUser.hasPerk(p.getId())) saveState = 1;
-                }
-
-                int voteState = 0;
-                if (currentUser != null) {
-                    if (p.getUpvotedBy().stream().anyMatch(u -> u.getId().equals(currentUser.getId()))) voteState = 1;
-                    else if (p.getDownvotedBy().stream().anyMatch(u -> u.getId().equals(currentUser.getId())))
-                        voteState = -1;
-                }
-                map.put("saveState", saveState);
-                map.put("voteState", voteState);
-                map.put("csrfParam", "_csrf");
-                map.put("csrfToken", model.getAttribute("_csrf") != null ? ((org.springframework.security.web.csrf.CsrfToken) model.getAttribute("_csrf")).getToken() : "");
-                map.put("csrfHeader", model.getAttribute("_csrf") != null ? ((org.springframework.security.web.csrf.CsrfToken) model.getAttribute("_csrf")).getHeaderName() : "");
-                map.put("page", finalPageNum);
-                map.put("isAuthenticated", currentUser != null);
-
-                return map;
-            }).collect(Collectors.toList());
-
-            String perksJson = mapper.writeValueAsString(perksJsonList);
-            model.addAttribute("perksJson", perksJson);
-
+            // Values shared by every perk on the page are sent once
+            model.addAttribute("perksPageJson", pageHeaderWriter.writeValueAsString(new PerkPageHeader(
+                    pageNum, pageSize, totalPages, total, nextCursor, PageSession.of(isAuthenticated, csrfToken))));
+            stageTimers.record("/perks", "json", System.nanoTime() - jsonStart);
 
             return "perks";
         } catch (Exception e) {
@@ -202,6 +192,64 @@ public class PerkController {
         }
     }
 
+    /**
+     * Returns one page of perks as JSON, using the same filters, sorting, and paging as {@link #listPerks}.
+     * Used by the perks page script to load other pages on demand instead of embedding
+     * the whole result set in the HTML.
+     *
+     * @param membershipType optional filter by membership type
+     * @param region         optional filter by region
+     * @param expiryOnly     optional filter to show only expiring perks
+     * @param q              optional free text to search perks for
+     * @param sort           optional sort field name
+     * @param direction      optional sort direction ("asc" or "desc")
+     * @param page           optional page number (0-indexed)
+     * @param size           optional page size (at most {@value #MAX_PAGE_SIZE})
+     * @param after          optional cursor of the last perk on the previous page, as returned in
+     *                       {@code nextCursor}; {@code page} is then only used to number the page
+     * @param currentAccount the logged-in account, or null for guests
+     * @return the perks on the page together with the page number, page size, totals, and the
+     *         cursor of the next page ({@code nextCursor}, null on the last page or for relevance order)
+     */
+    @GetMapping("/data")
+    @ResponseBody
+    public PerkPageDto perksData(
+            @RequestParam Optional<String> membershipType,
+            @RequestParam Optional<String> region,
+            @RequestParam Optional<Boolean> expiryOnly,
+            @RequestParam Optional<Boolean> myMembershipsOnly,
+            @RequestParam Optional<String> q,
+            @RequestParam Optional<String> sort,
+            @RequestParam Optional<String> direction,
+            @RequestParam Optional<Integer> page,
+            @RequestParam Optional<Integer> size,
+            @RequestParam Optional<String> after,
+            CurrentAccount currentAccount) {
+
+        Page<Perk> perkPage = pageLoader.load("/perks/data", membershipType, region, expiryOnly, myMembershipsOnly,
+                q, sort, direction, page, size, after, currentAccount);
+        PerkAccountStates accountStates = currentAccount != null
+                ? stageTimers.time("/perks/data", "accountStates",
+                        () -> perkService.getAccountStates(currentAccount.getId(), perkPage.getContent()))
+                : PerkAccountStates.none();
+
+        return stageTimers.time("/perks/data", "json", () -> new PerkPageDto(perkPage.getNumber(), perkPage.getSize(),
+                Math.max(perkPage.getTotalPages(), 1), perkPage.getTotalElements(),
+                perkService.nextCursor(perkPage).map(PerkCursor::toString).orElse(null),
+                perkDtos(perkPage.getContent(), accountStates)));
+    }
+
+    /**
+     * Builds the DTOs of the perks on a page, including the viewer's vote and save state.
+     */
+    private static List<PerkDto> perkDtos(List<Perk> perks, PerkAccountStates accountStates) {
+        List<PerkDto> dtos = new ArrayList<>(perks.size());
+        for (Perk perk : perks) {
+            dtos.add(PerkDto.from(perk, accountStates));
+        }
+        return dtos;
+    }
+
 
     /**
      * Displays the form for adding a new perk.
@@ -317,11 +365,11 @@ public class PerkController {
     }
 
 
-    // --- Voting endpoints (update counts immediately, then redirect back) ---
+    // --- Voting endpoints (record the toggle in the vote buffer, then redirect back) ---
 
     /**
      * Handles upvoting a perk by the authenticated user.
-     * Updates the perk's upvote count and redirects back to the perks list.
+     * Records the upvote toggle and redirects back to the perks list.
      *
      * @param id          the ID of the perk to upvote
      * @param userDetails the authenticated user details
@@ -336,9 +384,7 @@ public class PerkController {
             if (userDetails == null) {
                 return "redirect:/login";
             }
-            Account account = accountService.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Authenticated account not found"));
-            perkService.toggleUpvotePerk(id, account);
+            perkService.toggleUpvotePerk(id, accountIdOf(userDetails));
             redirectAttributes.addAttribute("page", page);
             return "redirect:/perks";
         } catch (Exception e) {
@@ -347,9 +393,28 @@ public class PerkController {
         }
     }
 
+    /**
+     * Handles an upvote sent by the perks page script.
+     * Records the upvote toggle and acknowledges it without redirecting or rendering the page.
+     *
+     * @param id          the ID of the perk to upvote
+     * @param userDetails the authenticated user details
+     * @return 202 Accepted once the vote is recorded, or 401 Unauthorized if not logged in
+     */
+    @PostMapping(value = "/{id}/upvote", headers = "X-Requested-With=XMLHttpRequest")
+    @ResponseBody
+    public ResponseEntity<Void> toggleUpvoteAsync(@PathVariable Long id,
+                                                  @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        perkService.toggleUpvotePerk(id, accountIdOf(userDetails));
+        return ResponseEntity.accepted().build();
+    }
+
     /**
      * Handles downvoting a perk by the authenticated user.
-     * Updates the perk's downvote count and redirects back to the perks list.
+     * Records the downvote toggle and redirects back to the perks list.
      *
      * @param id          the ID of the perk to downvote
      * @param userDetails the authenticated user details
@@ -364,9 +429,7 @@ public class PerkController {
             if (userDetails == null) {
                 return "redirect:/login";
             }
-            Account account = accountService.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Authenticated account not found"));
-            perkService.toggleDownvotePerk(id, account);
+            perkService.toggleDownvotePerk(id, accountIdOf(userDetails));
             redirectAttributes.addAttribute("page", page);
             return "redirect:/perks";
         } catch (Exception e) {
@@ -375,6 +438,42 @@ public class PerkController {
         }
     }
 
+    /**
+     * Handles a downvote sent by the perks page script.
+     * Records the downvote toggle and acknowledges it without redirecting or rendering the page.
+     *
+     * @param id          the ID of the perk to downvote
+     * @param userDetails the authenticated user details
+     * @return 202 Accepted once the vote is recorded, or 401 Unauthorized if not logged in
+     */
+    @PostMapping(value = "/{id}/downvote", headers = "X-Requested-With=XMLHttpRequest")
+    @ResponseBody
+    public ResponseEntity<Void> toggleDownvoteAsync(@PathVariable Long id,
+                                                    @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        perkService.toggleDownvotePerk(id, accountIdOf(userDetails));
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Returns the account ID of the authenticated user.
+     * Uses the ID carried by an {@link AccountPrincipal}, and only falls back to a
+     * database lookup for other kinds of principal.
+     *
+     * @param userDetails the authenticated user details
+     * @return the account ID
+     */
+    private Long accountIdOf(UserDetails userDetails) {
+        if (userDetails instanceof AccountPrincipal principal) {
+            return principal.getAccountId();
+        }
+        return accountService.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("Authenticated account not found"))
+                .getId();
+    }
+
 
     /**
      * Used to save perks to user profile from the perks search page.
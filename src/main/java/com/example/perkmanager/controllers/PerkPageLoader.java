@@ -0,0 +1,91 @@
+package com.example.perkmanager.controllers;
+
+import com.example.perkmanager.metrics.StageTimers;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.services.CurrentAccount;
+import com.example.perkmanager.services.PerkCursor;
+import com.example.perkmanager.services.PerkService;
+import org.springframework.data.domain.Page;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Turns the filter, sort and paging request parameters shared by the perk list endpoints
+ * ({@code /perks}, {@code /perks/data} and {@code /api/perks}) into one page of perks.
+ *
+ */
+final class PerkPageLoader {
+
+    /** Page size used when the client does not ask for one. */
+    static final int DEFAULT_PAGE_SIZE = 5;
+
+    private final PerkService perkService;
+    private final StageTimers stageTimers;
+
+    /**
+     * Constructs a PerkPageLoader.
+     *
+     * @param perkService the service that queries perks
+     * @param stageTimers the timers the query is recorded in
+     */
+    PerkPageLoader(PerkService perkService, StageTimers stageTimers) {
+        this.perkService = perkService;
+        this.stageTimers = stageTimers;
+    }
+
+    /**
+     * Loads the requested page of perks. Sorting and paging are done by the database.
+     * With a cursor the page starts after the cursor's perk; otherwise it is read by offset.
+     * A page number past the end, or a cursor with nothing after it, loads the last page instead.
+     * A search with no sort field is ordered by relevance.
+     * The page size is clamped to 1..{@value PerkController#MAX_PAGE_SIZE}.
+     *
+     * @param endpoint          the endpoint the query is timed under
+     * @param membershipType    optional filter by membership type
+     * @param region            optional filter by region
+     * @param expiryOnly        optional filter to show only expiring perks
+     * @param myMembershipsOnly optional filter to the current account's memberships
+     * @param q                 optional free text to search perks for
+     * @param sort              optional sort field name
+     * @param direction         optional sort direction ("asc" or "desc")
+     * @param page              optional page number (0-indexed)
+     * @param size              optional page size
+     * @param after             optional cursor of the last perk on the previous page
+     * @param currentAccount    the logged-in account, or null for guests
+     * @return the page of perks
+     */
+    Page<Perk> load(String endpoint, Optional<String> membershipType, Optional<String> region,
+                    Optional<Boolean> expiryOnly, Optional<Boolean> myMembershipsOnly,
+                    Optional<String> q, Optional<String> sort, Optional<String> direction,
+                    Optional<Integer> page, Optional<Integer> size, Optional<String> after,
+                    CurrentAccount currentAccount) {
+        Optional<Set<Long>> userMemberships = myMembershipsOnly.orElse(false) && currentAccount != null
+                ? Optional.of(currentAccount.getMembershipIds().toSet())
+                : Optional.empty();
+
+        Optional<String> search = q.map(String::trim).filter(s -> !s.isEmpty());
+        Optional<String> sortKey = sort.filter(s -> !s.isEmpty())
+                .or(() -> search.map(s -> "relevance"));
+
+        int pageNum = Math.max(page.orElse(0), 0);
+        int pageSize = Math.min(Math.max(size.orElse(DEFAULT_PAGE_SIZE), 1), PerkController.MAX_PAGE_SIZE);
+        Optional<PerkCursor> cursor = after.flatMap(PerkCursor::parse);
+        return stageTimers.time(endpoint, "query", () -> {
+            if (cursor.isPresent()) {
+                Page<Perk> perkPage = perkService.filterPerksAfter(membershipType, region, expiryOnly, userMemberships,
+                        search, perkService.pageRequest(pageNum, pageSize, sortKey, direction), cursor.get());
+                if (perkPage.hasContent()) return perkPage;
+            }
+            Page<Perk> perkPage = perkService.filterPerks(membershipType, region, expiryOnly, userMemberships,
+                    search, perkService.pageRequest(pageNum, pageSize, sortKey, direction));
+            int totalPages = Math.max(perkPage.getTotalPages(), 1);
+            if (pageNum >= totalPages) {
+                // Requested page is past the end: show the last page instead
+                perkPage = perkService.filterPerks(membershipType, region, expiryOnly, userMemberships,
+                        search, perkService.pageRequest(totalPages - 1, pageSize, sortKey, direction));
+            }
+            return perkPage;
+        });
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.perkmanager.controllers;
 
+import com.example.perkmanager.metrics.StageTimers;
 import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
 import com.example.perkmanager.services.MembershipService;
 import com.example.perkmanager.services.PerkService;
 import org.springframework.security.core.Authentication;
@@ -31,6 +33,7 @@ public class ProfileController {
     private final AccountService accountService;
     private final MembershipService membershipService;
     private final PerkService perkService;
+    private final StageTimers stageTimers;
 
     /**
      * Creates a new {@code ProfileController} with the required services.
@@ -38,11 +41,14 @@ public class ProfileController {
      * @param accountService    service for loading and updating {@link Account} entities
      * @param membershipService service for loading {@link Membership} entities
      * @param perkService       service for loading and updating {@link Perk} entities
+     * @param stageTimers       timers for each stage of rendering the profile page
      */
-    public ProfileController(AccountService accountService, MembershipService membershipService, PerkService perkService) {
+    public ProfileController(AccountService accountService, MembershipService membershipService,
+                             PerkService perkService, StageTimers stageTimers) {
         this.accountService = accountService;
         this.membershipService = membershipService;
         this.perkService = perkService;
+        this.stageTimers = stageTimers;
     }
 
     /**
@@ -50,30 +56,36 @@ public class ProfileController {
      * with the current user's account, memberships, and perks.
      * <p>
      * Memberships and perks are sorted alphabetically by organization name.
+     * Memberships come from the cached membership catalog and saved perks are loaded
+     * by ID, so the {@link Account} entity and its collections are never loaded.
      *
-     * @param model the MVC model used to expose attributes to the {@code profile} view
+     * @param currentAccount the logged-in account, or null for guests
+     * @param model          the MVC model used to expose attributes to the {@code profile} view
      * @return the logical view name for the profile page ({@code "profile"})
      */
     @GetMapping
-    public String profile(Model model) {
-        Optional<Account> current = getCurrentAccount();
-        model.addAttribute("isAuthenticated", current.isPresent());
-        model.addAttribute("account", current.orElse(null));
-
-        List<Membership> memberships = new ArrayList<>(
-                current.map(Account::getMemberships)
-                        .orElseGet(Collections::emptySet)
-        );
-
-        memberships.sort(Comparator.comparing(Membership::getOrganizationName));
+    public String profile(CurrentAccount currentAccount, Model model) {
+        model.addAttribute("isAuthenticated", currentAccount != null);
+        model.addAttribute("account", currentAccount);
+
+        List<Membership> memberships = stageTimers.time("/profile", "memberships", () -> {
+            if (currentAccount == null) return new ArrayList<Membership>();
+            List<Membership> list = new ArrayList<>();
+            for (Membership m : membershipService.getAllMemberships()) {
+                if (currentAccount.hasMembership(m.getId())) list.add(m);
+            }
+            list.sort(Comparator.comparing(Membership::getOrganizationName));
+            return list;
+        });
         model.addAttribute("memberships", memberships);
 
-        List<Perk> perks = new ArrayList<>(
-                current.map(Account::getSavedPerks)
-                        .orElseGet(Collections::emptySet)
-        );
-
-        perks.sort(Comparator.comparing(perk -> perk.getMembership().getOrganizationName()));
+        List<Perk> perks = stageTimers.time("/profile", "savedPerks", () -> {
+            if (currentAccount == null) return new ArrayList<Perk>();
+            List<Perk> list = new ArrayList<>(
+                    perkService.findAllByIdInOrder(new ArrayList<>(currentAccount.getSavedPerkIds().toSet())));
+            list.sort(Comparator.comparing(perk -> perk.getMembership().getOrganizationName()));
+            return list;
+        });
         model.addAttribute("perks", perks);
 
         return "profile";
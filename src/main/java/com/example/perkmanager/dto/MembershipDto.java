@@ -0,0 +1,27 @@
+package com.example.perkmanager.dto;
+
+import com.example.perkmanager.model.Membership;
+
+/**
+ * One membership as embedded in the memberships page.
+ *
+ * @param id           the membership ID
+ * @param type         the membership type
+ * @param organization the organization offering the membership
+ * @param description  the membership description
+ * @param saveState    1 if the viewer holds the membership, otherwise 0
+ */
+public record MembershipDto(Long id, String type, String organization, String description, int saveState) {
+
+    /**
+     * Builds the DTO for a membership as seen by one viewer.
+     *
+     * @param membership the membership
+     * @param saveState  1 if the viewer holds the membership, otherwise 0
+     * @return the DTO
+     */
+    public static MembershipDto from(Membership membership, int saveState) {
+        return new MembershipDto(membership.getId(), membership.getType(), membership.getOrganizationName(),
+                membership.getDescription(), saveState);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.perkmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.security.web.csrf.CsrfToken;
+
+/**
+ * Per-page values the scripts of a view need once, rather than on every row: whether the
+ * viewer is logged in, and the CSRF token to send with votes and saves.
+ *
+ * @param isAuthenticated whether the viewer is logged in
+ * @param csrfParam       the name of the CSRF form parameter
+ * @param csrfToken       the CSRF token, empty if there is none
+ * @param csrfHeader      the name of the CSRF header, empty if there is none
+ */
+public record PageSession(@JsonProperty("isAuthenticated") boolean isAuthenticated,
+                          String csrfParam,
+                          String csrfToken,
+                          String csrfHeader) {
+
+    /**
+     * Builds the session values of a page.
+     *
+     * @param isAuthenticated whether the viewer is logged in
+     * @param csrfToken       the CSRF token of the request, or null
+     * @return the session values
+     */
+    public static PageSession of(boolean isAuthenticated, CsrfToken csrfToken) {
+        return csrfToken != null
+                ? new PageSession(isAuthenticated, csrfToken.getParameterName(), csrfToken.getToken(), csrfToken.getHeaderName())
+                : new PageSession(isAuthenticated, "_csrf", "", "");
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.perkmanager.dto;
+
+import com.example.perkmanager.model.Membership;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.model.Product;
+import com.example.perkmanager.services.PerkAccountStates;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * One perk as sent to clients: the fields shown in a perk list row, plus the viewer's vote and
+ * save state. Streamed field by field with {@link #writeTo}, or serialized by Jackson with the
+ * same field names when embedded in a view.
+ *
+ * @param id         the perk ID
+ * @param benefit    the description of the benefit
+ * @param rating     upvotes minus downvotes
+ * @param expiryDate the expiry date in epoch milliseconds, or null if the perk never expires
+ * @param region     the region the perk applies to, or null
+ * @param membership the membership required for the perk, or null
+ * @param product    the product the perk applies to, or null
+ * @param voteState  the viewer's vote: 1 for an upvote, -1 for a downvote, 0 for none
+ * @param saveState  1 if the viewer saved the perk, otherwise 0
+ */
+public record PerkDto(long id,
+                      String benefit,
+                      int rating,
+                      Long expiryDate,
+                      String region,
+                      @JsonInclude(JsonInclude.Include.NON_NULL) MembershipSummary membership,
+                      @JsonInclude(JsonInclude.Include.NON_NULL) ProductSummary product,
+                      int voteState,
+                      int saveState) {
+
+    /**
+     * Builds the DTO for a perk as seen by one viewer.
+     *
+     * @param perk          the perk, with its membership and product loaded
+     * @param accountStates the viewer's vote and save states for the page
+     * @return the DTO
+     */
+    public static PerkDto from(Perk perk, PerkAccountStates accountStates) {
+        return new PerkDto(
+                perk.getId(),
+                perk.getBenefit(),
+                perk.getRating(),
+                perk.getExpiryDate() != null ? perk.getExpiryDate().getTimeInMillis() : null,
+                perk.getRegion(),
+                MembershipSummary.from(perk.getMembership()),
+                ProductSummary.from(perk.getProduct()),
+                accountStates.voteState(perk.getId()),
+                accountStates.saveState(perk.getId()));
+    }
+
+    /**
+     * Writes this perk as a JSON object. The membership and product are left out when null.
+     *
+     * @param gen the generator to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", id);
+        gen.writeStringField("benefit", benefit);
+        gen.writeNumberField("rating", rating);
+        gen.writeFieldName("expiryDate");
+        if (expiryDate != null) {
+            gen.writeNumber(expiryDate);
+        } else {
+            gen.writeNull();
+        }
+        gen.writeStringField("region", region);
+        if (membership != null) {
+            gen.writeFieldName("membership");
+            membership.writeTo(gen);
+        }
+        if (product != null) {
+            gen.writeFieldName("product");
+            product.writeTo(gen);
+        }
+        gen.writeNumberField("voteState", voteState);
+        gen.writeNumberField("saveState", saveState);
+        gen.writeEndObject();
+    }
+
+    /**
+     * The membership fields shown with a perk.
+     *
+     * @param type             the membership type
+     * @param description      the membership description
+     * @param organizationName the organization offering the membership
+     */
+    public record MembershipSummary(String type, String description, String organizationName) {
+
+        static MembershipSummary from(Membership membership) {
+            return membership == null ? null : new MembershipSummary(
+                    membership.getType(), membership.getDescription(), membership.getOrganizationName());
+        }
+
+        void writeTo(JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("type", type);
+            gen.writeStringField("description", description);
+            gen.writeStringField("organizationName", organizationName);
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * The product fields shown with a perk.
+     *
+     * @param name        the product name
+     * @param company     the company selling the product
+     * @param description the product description
+     */
+    public record ProductSummary(String name, String company, String description) {
+
+        static ProductSummary from(Product product) {
+            return product == null ? null : new ProductSummary(
+                    product.getName(), product.getCompany(), product.getDescription());
+        }
+
+        void writeTo(JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("name", name);
+            gen.writeStringField("company", company);
+            gen.writeStringField("description", description);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.perkmanager.dto;
+
+import java.util.List;
+
+/**
+ * One page of perks as returned by {@code /perks/data}.
+ *
+ * @param page       the page number (0-indexed)
+ * @param size       the page size
+ * @param totalPages the number of pages, at least 1
+ * @param totalPerks the number of perks matching the filters
+ * @param nextCursor the cursor of the next page, or null on the last page or for relevance order
+ * @param perks      the perks on the page
+ */
+public record PerkPageDto(int page, int size, int totalPages, long totalPerks, String nextCursor,
+                          List<PerkDto> perks) {
+}
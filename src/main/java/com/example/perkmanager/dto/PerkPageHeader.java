@@ -0,0 +1,17 @@
+package com.example.perkmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * The paging and session values embedded once in the perks page, next to the perks of the page.
+ *
+ * @param page       the page number (0-indexed)
+ * @param size       the page size
+ * @param totalPages the number of pages, at least 1
+ * @param totalPerks the number of perks matching the filters
+ * @param nextCursor the cursor of the next page, or null on the last page or for relevance order
+ * @param session    the viewer's login state and CSRF token, written as top-level fields
+ */
+public record PerkPageHeader(int page, int size, int totalPages, long totalPerks, String nextCursor,
+                             @JsonUnwrapped PageSession session) {
+}
@@ -0,0 +1,58 @@
+package com.example.perkmanager.metrics;
+
+import com.example.perkmanager.services.MembershipService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the membership catalog cache statistics of {@link MembershipService} to Micrometer.
+ * <p>
+ * Reads are counted by {@value #REQUESTS_METRIC}, tagged {@code result=hit} or {@code result=miss},
+ * and the number of invalidations is the {@value #VERSION_METRIC} gauge. All three can be read
+ * through {@code /actuator/metrics}: misses staying flat while hits grow confirms the perks
+ * page no longer queries memberships.
+ *
+ */
+@Component
+public class MembershipCatalogMetrics implements MeterBinder {
+
+    /** Name of the counter of catalog reads. */
+    public static final String REQUESTS_METRIC = "perkmanager.membership.catalog.requests";
+
+    /** Name of the gauge holding the catalog version. */
+    public static final String VERSION_METRIC = "perkmanager.membership.catalog.version";
+
+    private final MembershipService membershipService;
+
+    /**
+     * Constructs a MembershipCatalogMetrics.
+     *
+     * @param membershipService the service whose catalog cache is reported on
+     */
+    public MembershipCatalogMetrics(MembershipService membershipService) {
+        this.membershipService = membershipService;
+    }
+
+    /**
+     * Registers the hit and miss counters and the version gauge.
+     *
+     * @param registry the registry to register them in
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(REQUESTS_METRIC, membershipService, s -> s.getCatalogStats().hits())
+                .tag("result", "hit")
+                .description("Membership catalog reads served from the cache")
+                .register(registry);
+        FunctionCounter.builder(REQUESTS_METRIC, membershipService, s -> s.getCatalogStats().misses())
+                .tag("result", "miss")
+                .description("Membership catalog reads that loaded memberships from the database")
+                .register(registry);
+        Gauge.builder(VERSION_METRIC, membershipService, s -> s.getCatalogStats().version())
+                .description("Number of times the membership catalog was invalidated")
+                .register(registry);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.perkmanager.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Records the time spent rendering the view as the {@code render} stage.
+ * Views are rendered after the controller method returns, so this runs
+ * between {@link #postHandle} and {@link #afterCompletion}.
+ * The endpoint is the matched request mapping, e.g. {@code /perks}.
+ *
+ */
+public class RenderTimingInterceptor implements HandlerInterceptor {
+
+    private static final String RENDER_START = RenderTimingInterceptor.class.getName() + ".renderStart";
+
+    private final StageTimers stageTimers;
+
+    /**
+     * Constructs a RenderTimingInterceptor.
+     *
+     * @param stageTimers the timers the render stage is recorded in
+     */
+    public RenderTimingInterceptor(StageTimers stageTimers) {
+        this.stageTimers = stageTimers;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView != null && modelAndView.hasView()) {
+            request.setAttribute(RENDER_START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(RENDER_START);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (start instanceof Long startNanos && pattern != null) {
+            stageTimers.record(pattern.toString(), "render", System.nanoTime() - startNanos);
+        }
+    }
+}
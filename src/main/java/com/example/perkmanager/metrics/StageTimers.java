@@ -0,0 +1,143 @@
+package com.example.perkmanager.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times the individual stages of a request (account lookup, queries, JSON building, rendering, ...).
+ * <p>
+ * Each endpoint and stage pair gets its own Micrometer timer named {@value #METRIC_NAME},
+ * tagged with {@code endpoint} and {@code stage}, with 50th, 95th and 99th percentiles.
+ * The timers can be read through {@code /actuator/metrics} or summarized per endpoint
+ * by {@link StageTimingsEndpoint}.
+ *
+ */
+@Component
+public class StageTimers {
+
+    /** Name of the Micrometer timer shared by every stage. */
+    public static final String METRIC_NAME = "perkmanager.request.stage";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a StageTimers.
+     *
+     * @param registry the registry the stage timers are registered in
+     */
+    public StageTimers(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Runs one stage of a request and records how long it took.
+     *
+     * @param endpoint the endpoint being served, e.g. {@code /perks}
+     * @param stage    the name of the stage
+     * @param work     the work done by the stage
+     * @param <T>      the result type
+     * @return the result of the stage
+     */
+    public <T> T time(String endpoint, String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(endpoint, stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs one stage of a request that has no result and records how long it took.
+     *
+     * @param endpoint the endpoint being served, e.g. {@code /perks}
+     * @param stage    the name of the stage
+     * @param work     the work done by the stage
+     */
+    public void time(String endpoint, String stage, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            record(endpoint, stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a stage that was timed elsewhere.
+     *
+     * @param endpoint the endpoint being served, e.g. {@code /perks}
+     * @param stage    the name of the stage
+     * @param nanos    the duration of the stage in nanoseconds
+     */
+    public void record(String endpoint, String stage, long nanos) {
+        timer(endpoint, stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Summarizes every stage timer, grouped by endpoint and then by stage.
+     *
+     * @return the stage summaries, with endpoints and stages in alphabetical order
+     */
+    public Map<String, Map<String, StageSummary>> summaries() {
+        Map<String, Map<String, StageSummary>> summaries = new TreeMap<>();
+        for (Timer timer : timers.values()) {
+            String endpoint = timer.getId().getTag("endpoint");
+            String stage = timer.getId().getTag("stage");
+            summaries.computeIfAbsent(endpoint, e -> new TreeMap<>())
+                    .put(stage, StageSummary.of(timer.takeSnapshot()));
+        }
+        return summaries;
+    }
+
+    private Timer timer(String endpoint, String stage) {
+        return timers.computeIfAbsent(endpoint + ' ' + stage, key -> Timer.builder(METRIC_NAME)
+                .description("Time spent in one stage of serving a request")
+                .tags(List.of(Tag.of("endpoint", endpoint), Tag.of("stage", stage)))
+                .publishPercentiles(PERCENTILES)
+                .distributionStatisticExpiry(Duration.ofMinutes(5))
+                .register(registry));
+    }
+
+    /**
+     * Latency summary of one stage. The max and percentiles cover the last few minutes;
+     * the count and mean cover the life of the application.
+     *
+     * @param count  the number of times the stage ran
+     * @param meanMs the mean duration in milliseconds
+     * @param maxMs  the longest recent duration in milliseconds
+     * @param p50Ms  the median duration in milliseconds
+     * @param p95Ms  the 95th percentile duration in milliseconds
+     * @param p99Ms  the 99th percentile duration in milliseconds
+     */
+    public record StageSummary(long count, double meanMs, double maxMs, double p50Ms, double p95Ms, double p99Ms) {
+
+        static StageSummary of(HistogramSnapshot snapshot) {
+            double[] percentiles = new double[PERCENTILES.length];
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    if (value.percentile() == PERCENTILES[i]) {
+                        percentiles[i] = value.value(TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+            return new StageSummary(snapshot.count(), snapshot.mean(TimeUnit.MILLISECONDS),
+                    snapshot.max(TimeUnit.MILLISECONDS), percentiles[0], percentiles[1], percentiles[2]);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.perkmanager.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint at {@code /actuator/stages} that lists the latency of every timed
+ * request stage, grouped by endpoint, with 50th, 95th and 99th percentiles.
+ *
+ */
+@Component
+@Endpoint(id = "stages")
+public class StageTimingsEndpoint {
+
+    private final StageTimers stageTimers;
+
+    /**
+     * Constructs a StageTimingsEndpoint.
+     *
+     * @param stageTimers the stage timers to report on
+     */
+    public StageTimingsEndpoint(StageTimers stageTimers) {
+        this.stageTimers = stageTimers;
+    }
+
+    /**
+     * Returns the latency summary of every stage.
+     *
+     * @return the stage summaries by endpoint and stage
+     */
+    @ReadOperation
+    public Map<String, Map<String, StageTimers.StageSummary>> stages() {
+        return stageTimers.summaries();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.perkmanager.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -41,24 +42,28 @@ public class Account {
      * Perks created by this account.
      */
     @OneToMany(mappedBy = "creator", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private Set<Perk> perks = new HashSet<>();
 
     /**
      * Perks that this account has upvoted.
      */
     @ManyToMany(mappedBy = "upvotedBy")
+    @BatchSize(size = 50)
     private Set<Perk> upvotedPerks = new HashSet<>();
 
     /**
      * Perks that this account has downvoted.
      */
     @ManyToMany(mappedBy = "downvotedBy")
+    @BatchSize(size = 50)
     private Set<Perk> downvotedPerks = new HashSet<>();
 
     /**
      * Memberships associated with this account.
      */
     @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(
             name = "account_memberships",
             joinColumns = @JoinColumn(name = "account_id"),
@@ -70,6 +75,7 @@ public class Account {
      * Perks this account has saved to its profile.
      */
     @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(
             name = "account_saved_perks",
             joinColumns = @JoinColumn(name = "account_id"),
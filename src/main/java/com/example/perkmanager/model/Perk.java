@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.FutureOrPresent;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.FractionalSeconds;
 
 import java.util.Calendar;
 import java.util.HashSet;
@@ -13,12 +16,27 @@ import java.util.Set;
  * Represents a perk in the Perk Manager system.
  * A perk is a discount or benefit tied to a specific membership and product.
  * Perks can have optional expiry dates and regions, and can be upvoted or downvoted by users.
+ * <p>
+ * Lists of perks are loaded with the {@value #LIST_GRAPH} entity graph, which joins in the
+ * membership and product shown on every row, so a page of perks takes one select.
+ * Pages sorted by rating or expiry are read from the {@code (score, id)} and
+ * {@code (expiry_date, id)} indexes (see {@code V7__perk_keyset_indexes.sql}).
  *
  */
 @Entity
-@Table(name = "perks")
+@Table(name = "perks", indexes = {
+    @Index(name = "idx_perks_score_id", columnList = "score, id"),
+    @Index(name = "idx_perks_expiry_id", columnList = "expiry_date, id")
+})
+@NamedEntityGraph(name = Perk.LIST_GRAPH, attributeNodes = {
+    @NamedAttributeNode("membership"),
+    @NamedAttributeNode("product")
+})
 public class Perk {
 
+  /** Entity graph for perk lists: the perk with its membership and product. */
+  public static final String LIST_GRAPH = "Perk.list";
+
   public static final int BENEFIT_MAX_LENGTH = 200;
   public static final int REGION_MAX_LENGTH = 100;
 
@@ -41,11 +59,23 @@ public class Perk {
   /**
    * Optional expiration date for this perk.
    * Must not be a date in the past.
+   * Stored to the millisecond, the precision of {@link Calendar}, so the value read back
+   * is exactly the stored one and can be used as a paging cursor.
    */
   @FutureOrPresent(message = "Date must not have already passed")
+  @FractionalSeconds(3)
   @Column(name = "expiry_date", nullable = true)
   private Calendar expiryDate;
 
+  /**
+   * Whether the expiry date of this perk has passed.
+   * Set by {@link com.example.perkmanager.services.PerkExpiryService} when the perk expires,
+   * so queries can filter on the flag instead of comparing dates.
+   */
+  @ColumnDefault("false")
+  @Column(name = "expired", nullable = false)
+  private boolean expired;
+
   /**
    * Optional region where this perk applies.
    * <p>
@@ -77,9 +107,10 @@ public class Perk {
 
   /**
    * The account that originally created this perk.
+   * Loaded lazily so that listing perks does not read any account rows.
    */
   @NotNull
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "creator_id", nullable = false)
   private Account creator;
 
@@ -87,6 +118,7 @@ public class Perk {
    * Accounts that have upvoted this perk.
    */
   @ManyToMany
+  @BatchSize(size = 50)
   @JoinTable(
     name = "perk_upvotes",
     joinColumns = @JoinColumn(name = "perk_id"),
@@ -98,6 +130,7 @@ public class Perk {
    * Accounts that have downvoted this perk.
    */
   @ManyToMany
+  @BatchSize(size = 50)
   @JoinTable(
     name = "perk_downvotes",
     joinColumns = @JoinColumn(name = "perk_id"),
@@ -105,6 +138,29 @@ public class Perk {
   )
   private Set<Account> downvotedBy = new HashSet<>();
 
+  /**
+   * Number of accounts that have upvoted this perk.
+   * Kept in step with {@link #upvotedBy} so the count can be read without loading the voters.
+   */
+  @ColumnDefault("0")
+  @Column(name = "upvote_count", nullable = false)
+  private int upvoteCount;
+
+  /**
+   * Number of accounts that have downvoted this perk.
+   * Kept in step with {@link #downvotedBy} so the count can be read without loading the voters.
+   */
+  @ColumnDefault("0")
+  @Column(name = "downvote_count", nullable = false)
+  private int downvoteCount;
+
+  /**
+   * Stored rating score ({@code upvote_count - downvote_count}), used for sorting by rating.
+   */
+  @ColumnDefault("0")
+  @Column(name = "score", nullable = false)
+  private int score;
+
   /**
    * Default constructor for JPA.
    */
@@ -165,6 +221,20 @@ public class Perk {
    */
   public void setExpiryDate(Calendar expiryDate) { this.expiryDate = expiryDate; }
 
+  /**
+   * Returns whether the perk has been marked as expired.
+   *
+   * @return {@code true} if the expiry date has passed
+   */
+  public boolean isExpired() { return expired; }
+
+  /**
+   * Marks the perk as expired or active.
+   *
+   * @param expired whether the expiry date has passed
+   */
+  public void setExpired(boolean expired) { this.expired = expired; }
+
   /**
    * Returns the region this perk applies to.
    *
@@ -233,7 +303,11 @@ public class Perk {
    *
    * @param upvotedBy the new set of upvoters
    */
-  public void setUpvotedBy(Set<Account> upvotedBy) { this.upvotedBy = upvotedBy; }
+  public void setUpvotedBy(Set<Account> upvotedBy) {
+    this.upvotedBy = upvotedBy;
+    this.upvoteCount = upvotedBy.size();
+    updateScore();
+  }
 
   /**
    * Returns all accounts that have downvoted this perk.
@@ -247,7 +321,25 @@ public class Perk {
    *
    * @param downvotedBy the new set of downvoters
    */
-  public void setDownvotedBy(Set<Account> downvotedBy) { this.downvotedBy = downvotedBy; }
+  public void setDownvotedBy(Set<Account> downvotedBy) {
+    this.downvotedBy = downvotedBy;
+    this.downvoteCount = downvotedBy.size();
+    updateScore();
+  }
+
+  /**
+   * Returns the stored number of upvotes.
+   *
+   * @return the upvote count
+   */
+  public int getUpvoteCount() { return upvoteCount; }
+
+  /**
+   * Returns the stored number of downvotes.
+   *
+   * @return the downvote count
+   */
+  public int getDownvoteCount() { return downvoteCount; }
 
   /**
    * Calculates the rating score of this perk.
@@ -256,31 +348,42 @@ public class Perk {
    * <pre>
    * upvotes - downvotes
    * </pre>
+   * The value comes from the stored counters, so the voter collections are not loaded.
    *
    * @return the rating score
    */
-  public int getRating() { return upvotedBy.size() - downvotedBy.size(); }
+  public int getRating() { return score; }
 
   /**
    * Returns the total number of votes (upvotes + downvotes).
    *
    * @return the total vote count
    */
-  public int getTotalRatings() { return upvotedBy.size() + downvotedBy.size(); }
+  public int getTotalRatings() { return upvoteCount + downvoteCount; }
 
   /**
    * Adds an upvote from the given account.
    *
    * @param account the {@link Account} giving the upvote
    */
-  public void addUpvote(Account account) { upvotedBy.add(account); }
+  public void addUpvote(Account account) {
+    if (upvotedBy.add(account)) {
+      upvoteCount++;
+      updateScore();
+    }
+  }
 
   /**
    * Adds a downvote from the given account.
    *
    * @param account the {@link Account} giving the downvote
    */
-  public void addDownvote(Account account) { downvotedBy.add(account); }
+  public void addDownvote(Account account) {
+    if (downvotedBy.add(account)) {
+      downvoteCount++;
+      updateScore();
+    }
+  }
 
   /**
    * Removes an upvote from the given account.
@@ -288,7 +391,12 @@ public class Perk {
    * @param account the {@link Account} whose upvote should be removed
    * @return {@code true} if the upvote was removed, {@code false} otherwise
    */
-  public boolean removeUpvote(Account account) { return upvotedBy.remove(account); }
+  public boolean removeUpvote(Account account) {
+    if (!upvotedBy.remove(account)) return false;
+    upvoteCount--;
+    updateScore();
+    return true;
+  }
 
   /**
    * Removes a downvote from the given account.
@@ -296,5 +404,15 @@ public class Perk {
    * @param account the {@link Account} whose downvote should be removed
    * @return {@code true} if the downvote was removed, {@code false} otherwise
    */
-  public boolean removeDownvote(Account account) { return downvotedBy.remove(account); }
+  public boolean removeDownvote(Account account) {
+    if (!downvotedBy.remove(account)) return false;
+    downvoteCount--;
+    updateScore();
+    return true;
+  }
+
+  /**
+   * Recomputes the stored score from the vote counters.
+   */
+  private void updateScore() { score = upvoteCount - downvoteCount; }
 }
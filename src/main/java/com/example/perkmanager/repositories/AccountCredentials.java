@@ -0,0 +1,25 @@
+package com.example.perkmanager.repositories;
+
+/**
+ * Projection of the account fields needed to authenticate a user.
+ * Returned by {@link AccountRepository#findCredentialsByUsername}, so logging in
+ * does not load the account's memberships or perks.
+ *
+ */
+public interface AccountCredentials {
+
+    /**
+     * @return the ID of the account
+     */
+    Long getId();
+
+    /**
+     * @return the account's username
+     */
+    String getUsername();
+
+    /**
+     * @return the account's encoded password
+     */
+    String getPassword();
+}
@@ -0,0 +1,35 @@
+package com.example.perkmanager.repositories;
+
+/**
+ * One row of {@link AccountRepository#findLinksByUsername}: a membership or saved perk of an account.
+ * Every account has at least one row, with a null {@code linkedId} when it has nothing linked.
+ *
+ */
+public interface AccountLink {
+
+    /** Link type of a membership row. */
+    String MEMBERSHIP = "M";
+
+    /** Link type of a saved-perk row. */
+    String SAVED_PERK = "P";
+
+    /**
+     * @return the ID of the account
+     */
+    Long getAccountId();
+
+    /**
+     * @return the account's username
+     */
+    String getUsername();
+
+    /**
+     * @return {@link #MEMBERSHIP} or {@link #SAVED_PERK}
+     */
+    String getLinkType();
+
+    /**
+     * @return the ID of the linked membership or perk, or {@code null} on an account's placeholder row
+     */
+    Long getLinkedId();
+}
@@ -2,8 +2,11 @@ package com.example.perkmanager.repositories;
 
 import com.example.perkmanager.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,4 +24,31 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
    * @return an Optional containing the account if found, empty otherwise
    */
     Optional<Account> findByUsername(String username);
+
+  /**
+   * Finds the ID, username and encoded password of an account by its username.
+   *
+   * @param username the username to search for
+   * @return an Optional containing the account's credentials if found, empty otherwise
+   */
+    Optional<AccountCredentials> findCredentialsByUsername(String username);
+
+  /**
+   * Loads an account's ID together with the IDs of its memberships and saved perks in one query.
+   * Returns one row per membership and saved perk, plus one membership row with a null
+   * linked ID when the account has no memberships. Returns no rows if the username is unknown.
+   *
+   * @param username the username of the account
+   * @return the account's links
+   */
+    @Query(value = """
+            SELECT a.id AS "accountId", a.username AS "username", 'M' AS "linkType", am.membership_id AS "linkedId"
+            FROM accounts a LEFT JOIN account_memberships am ON am.account_id = a.id
+            WHERE a.username = :username
+            UNION ALL
+            SELECT a.id, a.username, 'P', sp.perk_id
+            FROM accounts a JOIN account_saved_perks sp ON sp.account_id = a.id
+            WHERE a.username = :username
+            """, nativeQuery = true)
+    List<AccountLink> findLinksByUsername(@Param("username") String username);
 }
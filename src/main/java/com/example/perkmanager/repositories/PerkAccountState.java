@@ -0,0 +1,25 @@
+package com.example.perkmanager.repositories;
+
+/**
+ * Projection of one account's relationship to one perk: whether the account has
+ * voted on the perk and whether it has saved the perk.
+ * Returned by {@link PerkRepository#findAccountStates}.
+ *
+ */
+public interface PerkAccountState {
+
+    /**
+     * @return the ID of the perk
+     */
+    Long getPerkId();
+
+    /**
+     * @return 1 if the account upvoted the perk, -1 if it downvoted it, 0 otherwise
+     */
+    Integer getVoteState();
+
+    /**
+     * @return 1 if the account saved the perk, 0 otherwise
+     */
+    Integer getSaveState();
+}
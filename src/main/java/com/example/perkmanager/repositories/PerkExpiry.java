@@ -0,0 +1,21 @@
+package com.example.perkmanager.repositories;
+
+import java.util.Calendar;
+
+/**
+ * Projection of a perk that is waiting to expire.
+ * Returned by {@link PerkRepository#findPendingExpiries}.
+ *
+ */
+public interface PerkExpiry {
+
+    /**
+     * @return the ID of the perk
+     */
+    Long getId();
+
+    /**
+     * @return the perk's expiry date
+     */
+    Calendar getExpiryDate();
+}
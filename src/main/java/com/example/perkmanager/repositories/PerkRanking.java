@@ -0,0 +1,31 @@
+package com.example.perkmanager.repositories;
+
+import java.util.Calendar;
+
+/**
+ * Projection of the perk fields the home-page leaderboards are ordered by.
+ * Returned by {@link PerkRepository#findAllRankings}.
+ *
+ */
+public interface PerkRanking {
+
+    /**
+     * @return the ID of the perk
+     */
+    Long getId();
+
+    /**
+     * @return the perk's score (upvotes minus downvotes)
+     */
+    int getScore();
+
+    /**
+     * @return the perk's expiry date, or {@code null} if it never expires
+     */
+    Calendar getExpiryDate();
+
+    /**
+     * @return whether the perk has been marked as expired
+     */
+    boolean isExpired();
+}
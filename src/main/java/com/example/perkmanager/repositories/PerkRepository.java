@@ -1,15 +1,119 @@
 package com.example.perkmanager.repositories;
 
 import com.example.perkmanager.model.Perk;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Repository interface for Perk entity operations.
  * Provides CRUD operations for perk management.
- * Extends JpaRepository to inherit standard database operations.
+ * Extends JpaRepository to inherit standard database operations, and
+ * JpaSpecificationExecutor so that searches can be expressed as SQL predicates
+ * (see {@link PerkSpecifications}).
  *
  */
 @Repository
-public interface PerkRepository extends JpaRepository<Perk, Long> {
+public interface PerkRepository extends JpaRepository<Perk, Long>, JpaSpecificationExecutor<Perk> {
+
+    /**
+     * Finds a page of perks matching a specification, with each perk's membership and
+     * product joined into the same select ({@link Perk#LIST_GRAPH}).
+     *
+     * @param spec     the search predicates
+     * @param pageable the page to load
+     * @return the page of perks
+     */
+    @Override
+    @EntityGraph(Perk.LIST_GRAPH)
+    Page<Perk> findAll(Specification<Perk> spec, Pageable pageable);
+
+    /**
+     * Finds the first perks matching a specification in the given order, without a count query,
+     * with each perk's membership and product joined into the same select. Used for keyset
+     * paging, where the specification starts the scan just after the previous page.
+     *
+     * @param spec  the search predicates
+     * @param sort  the order of the perks
+     * @param limit the most perks to return
+     * @return the first {@code limit} matching perks
+     */
+    default List<Perk> findFirst(Specification<Perk> spec, Sort sort, int limit) {
+        return findBy(spec, query -> query.sortBy(sort).limit(limit).project("membership", "product").all());
+    }
+
+    /**
+     * Finds the perks with the given IDs, with each perk's membership and product joined
+     * into the same select ({@link Perk#LIST_GRAPH}).
+     *
+     * @param ids the IDs of the perks
+     * @return the perks that exist, in no particular order
+     */
+    @Override
+    @EntityGraph(Perk.LIST_GRAPH)
+    List<Perk> findAllById(Iterable<Long> ids);
+
+    /**
+     * Looks up an account's vote and save state for a set of perks in a single query.
+     * Each state is an EXISTS probe on the primary key of a join table, so the cost
+     * depends only on the number of perks asked for, not on how many votes they have.
+     *
+     * @param accountId the ID of the account
+     * @param perkIds   the IDs of the perks to look up
+     * @return one row per existing perk
+     */
+    @Query(value = "SELECT p.id AS \"perkId\", " +
+            "CASE WHEN EXISTS (SELECT 1 FROM perk_upvotes u WHERE u.perk_id = p.id AND u.account_id = :accountId) THEN 1 " +
+            "     WHEN EXISTS (SELECT 1 FROM perk_downvotes d WHERE d.perk_id = p.id AND d.account_id = :accountId) THEN -1 " +
+            "     ELSE 0 END AS \"voteState\", " +
+            "CASE WHEN EXISTS (SELECT 1 FROM account_saved_perks s WHERE s.account_id = :accountId AND s.perk_id = p.id) THEN 1 " +
+            "     ELSE 0 END AS \"saveState\" " +
+            "FROM perks p WHERE p.id IN (:perkIds)",
+            nativeQuery = true)
+    List<PerkAccountState> findAccountStates(@Param("accountId") Long accountId,
+                                             @Param("perkIds") Collection<Long> perkIds);
+
+    /**
+     * Loads the ID, score, expiry date and expired flag of every perk, without loading the entities.
+     * Used to build the home-page leaderboards at startup.
+     *
+     * @return the ranking fields of all perks
+     */
+    @Query("SELECT p.id AS id, p.score AS score, p.expiryDate AS expiryDate, p.expired AS expired FROM Perk p")
+    List<PerkRanking> findAllRankings();
+
+    /**
+     * Loads the ID and expiry date of every perk that has an expiry date but is not yet marked
+     * as expired, including perks whose date has already passed. Used to schedule expiries at startup.
+     *
+     * @return the perks waiting to expire
+     */
+    @Query("SELECT p.id AS id, p.expiryDate AS expiryDate FROM Perk p " +
+            "WHERE p.expired = false AND p.expiryDate IS NOT NULL")
+    List<PerkExpiry> findPendingExpiries();
+
+    /**
+     * Loads the searchable text of the perks after a given ID, in ID order, without loading
+     * the entities. Used to build the in-memory search index in batches at startup.
+     *
+     * @param afterId the ID to start after; 0 for the first batch
+     * @param limit   the most perks to return
+     * @return the search fields of the next perks
+     */
+    @Query("SELECT p.id AS id, p.benefit AS benefit, p.region AS region, pr.name AS productName, " +
+            "pr.company AS company, m.type AS membershipType, m.organizationName AS organizationName " +
+            "FROM Perk p LEFT JOIN p.product pr LEFT JOIN p.membership m " +
+            "WHERE p.id > :afterId ORDER BY p.id")
+    List<PerkSearchFields> findSearchFieldsAfter(@Param("afterId") long afterId, Limit limit);
 }
@@ -0,0 +1,45 @@
+package com.example.perkmanager.repositories;
+
+/**
+ * Projection of the perk text the in-memory search index is built from: the perk's own
+ * benefit and region together with its product and membership names.
+ * Returned by {@link PerkRepository#findSearchFieldsAfter}.
+ *
+ */
+public interface PerkSearchFields {
+
+    /**
+     * @return the ID of the perk
+     */
+    Long getId();
+
+    /**
+     * @return the description of the benefit
+     */
+    String getBenefit();
+
+    /**
+     * @return the region the perk applies in, or {@code null} if it applies everywhere
+     */
+    String getRegion();
+
+    /**
+     * @return the name of the perk's product, or {@code null} if it has none
+     */
+    String getProductName();
+
+    /**
+     * @return the company that makes the perk's product, or {@code null} if it has no product
+     */
+    String getCompany();
+
+    /**
+     * @return the type of the perk's membership
+     */
+    String getMembershipType();
+
+    /**
+     * @return the organization that offers the perk's membership
+     */
+    String getOrganizationName();
+}
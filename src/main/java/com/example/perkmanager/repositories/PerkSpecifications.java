@@ -0,0 +1,207 @@
+package com.example.perkmanager.repositories;
+
+import com.example.perkmanager.model.Membership;
+import com.example.perkmanager.model.Perk;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Factory methods for the {@link Specification}s used to filter perks in the database.
+ * Each method turns one optional search criterion into a SQL predicate so that only
+ * matching rows are read from the perks table. A blank or missing criterion produces
+ * a {@code null} specification, which Spring Data treats as "no restriction".
+ *
+ */
+public final class PerkSpecifications {
+
+    /**
+     * Full-text match of the {@code perks.search_vector} column (see {@code V4__perk_search.sql})
+     * against a web-search style query. The column is not mapped on {@link Perk}, so it is named
+     * without a table alias; no other table in a perk query has a column of that name.
+     */
+    private static final String SEARCH_MATCH_SQL =
+            "search_vector @@ websearch_to_tsquery('english', ?)";
+
+    /**
+     * Relevance of a search match, boosted by the perk's rating: {@code ts_rank} scaled by
+     * {@code 1 + ln(1 + score)}, with negative scores counted as zero.
+     */
+    private static final String SEARCH_RANK_SQL =
+            "ts_rank(search_vector, websearch_to_tsquery('english', ?)) * (1 + ln(1 + greatest(?, 0)))";
+
+    /** Escape character of the LIKE patterns built from user input. */
+    private static final char LIKE_ESCAPE = '\\';
+
+    private PerkSpecifications() {}
+
+    /**
+     * Matches perks whose benefit, product name, company or membership organization match the
+     * given free text. Words are stemmed, so "flights" also finds "flight"; quoted phrases,
+     * {@code or} and {@code -word} are supported. The match uses the GIN index on
+     * {@code perks.search_vector}.
+     *
+     * @param text the text to search for, may be blank
+     * @return the specification, or {@code null} if the text is blank
+     */
+    public static Specification<Perk> matchesSearch(String text) {
+        if (text == null || text.trim().isEmpty()) return null;
+        String terms = text.trim();
+        return (root, query, cb) -> {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            return hcb.isTrue(hcb.sql(SEARCH_MATCH_SQL, Boolean.class, hcb.value(terms)));
+        };
+    }
+
+    /**
+     * Orders perks by how well they match the given free text, combined with their rating,
+     * best first, with ascending perk ID as a tie-breaker. Adds no restriction of its own;
+     * use it together with {@link #matchesSearch}. Spring Data drops this ordering from the
+     * count query, and a sort in the {@code Pageable} replaces it.
+     *
+     * @param text the text the perks were matched against, may be blank
+     * @return the specification, or {@code null} if the text is blank
+     */
+    public static Specification<Perk> orderedBySearchRank(String text) {
+        if (text == null || text.trim().isEmpty()) return null;
+        String terms = text.trim();
+        return (root, query, cb) -> {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            Expression<Double> rank = hcb.sql(SEARCH_RANK_SQL, Double.class,
+                    hcb.value(terms), root.get("score"));
+            query.orderBy(cb.desc(rank), cb.asc(root.get("id")));
+            return null;
+        };
+    }
+
+    /**
+     * Matches perks with one of the given IDs, typically the matches of an in-memory search.
+     * The IDs are bound as a single array parameter ({@code id = any(?)}), so the statement
+     * is the same for any number of IDs. An empty array matches no perks.
+     *
+     * @param perkIds the IDs of the perks to match
+     * @return the specification
+     */
+    public static Specification<Perk> idIn(long[] perkIds) {
+        Long[] ids = Arrays.stream(perkIds).boxed().toArray(Long[]::new);
+        return (root, query, cb) -> {
+            if (ids.length == 0) return cb.disjunction();
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            return hcb.isTrue(hcb.sql("? = any(?)", Boolean.class, root.get("id"), hcb.value(ids)));
+        };
+    }
+
+    /**
+     * Matches perks that come after a given position in a keyset order: sorted by the given
+     * attribute, then by perk ID, both in the same direction. The comparison is written as a
+     * row value, {@code (attribute, id) > (value, id)}, so the database can start an index scan
+     * on {@code (attribute, id)} at the position instead of skipping the rows before it.
+     * Perks whose attribute is null never match; page through those with {@link #hasNull} and
+     * a null attribute name, which compares the perk ID alone.
+     *
+     * @param attribute  the sorted attribute, or {@code null} to compare the perk ID alone
+     * @param value      the attribute value at the position; ignored when {@code attribute} is null
+     * @param id         the perk ID at the position
+     * @param descending whether the order is descending
+     * @return the specification
+     */
+    public static Specification<Perk> after(String attribute, Object value, long id, boolean descending) {
+        if (attribute == null) {
+            return (root, query, cb) -> descending
+                    ? cb.lessThan(root.get("id"), id)
+                    : cb.greaterThan(root.get("id"), id);
+        }
+        String comparison = descending ? "(?, ?) < (?, ?)" : "(?, ?) > (?, ?)";
+        return (root, query, cb) -> {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            return hcb.isTrue(hcb.sql(comparison, Boolean.class,
+                    root.get(attribute), root.get("id"), hcb.value(value), hcb.value(id)));
+        };
+    }
+
+    /**
+     * Matches perks whose attribute is null, or not null.
+     *
+     * @param attribute the attribute to check
+     * @param isNull    true to match null values, false to match values that are set
+     * @return the specification
+     */
+    public static Specification<Perk> hasNull(String attribute, boolean isNull) {
+        return (root, query, cb) -> isNull
+                ? cb.isNull(root.get(attribute))
+                : cb.isNotNull(root.get(attribute));
+    }
+
+    /**
+     * Matches perks whose membership type equals the given type (case-insensitive).
+     *
+     * @param membershipType the membership type to match, may be blank
+     * @return the specification, or {@code null} if the type is blank
+     */
+    public static Specification<Perk> hasMembershipType(String membershipType) {
+        if (membershipType == null || membershipType.trim().isEmpty()) return null;
+        String type = membershipType.toLowerCase();
+        return (root, query, cb) -> {
+            Join<Perk, Membership> membership = root.join("membership");
+            return cb.equal(cb.lower(membership.get("type")), type);
+        };
+    }
+
+    /**
+     * Matches perks whose region contains the given text (case-insensitive substring match).
+     * {@code %} and {@code _} in the text match themselves, not any characters.
+     *
+     * @param region the text to search for in the region, may be blank
+     * @return the specification, or {@code null} if the region is blank
+     */
+    public static Specification<Perk> regionContains(String region) {
+        if (region == null || region.trim().isEmpty()) return null;
+        String pattern = "%" + escapeLike(region.toLowerCase()) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("region")), pattern, LIKE_ESCAPE);
+    }
+
+    /**
+     * Escapes the LIKE wildcards in user input with {@value #LIKE_ESCAPE}.
+     */
+    private static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') escaped.append(LIKE_ESCAPE);
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Matches perks that have an expiry date and have not expired yet, according to the
+     * {@code expired} flag maintained by {@link com.example.perkmanager.services.PerkExpiryService}.
+     * Perks without an expiry date are excluded.
+     *
+     * @return the specification
+     */
+    public static Specification<Perk> expiresLater() {
+        return (root, query, cb) -> cb.and(
+                cb.isNotNull(root.get("expiryDate")),
+                cb.isFalse(root.get("expired"))
+        );
+    }
+
+    /**
+     * Matches perks provided by one of the memberships with the given IDs.
+     * An empty set matches no perks.
+     *
+     * @param membershipIds the IDs of the memberships to match against
+     * @return the specification
+     */
+    public static Specification<Perk> membershipIdIn(Set<Long> membershipIds) {
+        Set<Long> ids = Set.copyOf(membershipIds);
+        return (root, query, cb) -> ids.isEmpty()
+                ? cb.disjunction()
+                : root.get("membership").get("id").in(ids);
+    }
+}
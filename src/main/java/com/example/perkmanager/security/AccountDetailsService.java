@@ -1,36 +1,71 @@
 package com.example.perkmanager.security;
 
-import com.example.perkmanager.model.Account;
+import com.example.perkmanager.repositories.AccountCredentials;
+import com.example.perkmanager.services.AccountCredentialsChangedEvent;
 import com.example.perkmanager.services.AccountService;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Service implementation for Spring Security's UserDetailsService.
  * Loads user account information from the database for authentication purposes.
- * Converts Account entities to Spring Security UserDetails objects.
+ * Converts account credentials to Spring Security UserDetails objects ({@link AccountPrincipal}).
+ * <p>
+ * Only the account ID, username and password hash are loaded, and they are kept in a
+ * bounded cache for a short time, so repeated logins do not each query the database.
+ * Unknown usernames are remembered in a separate, smaller cache, so failed logins with
+ * made-up usernames cannot push real accounts out of the first one. An entry is dropped
+ * as soon as the account is created or its password changes ({@link AccountCredentialsChangedEvent}).
  *
  */
 @Service
 public class AccountDetailsService implements UserDetailsService {
 
     private final AccountService accountService;
+    private final long ttlMillis;
+    private final Map<String, CachedCredentials> cache;
+    private final Map<String, Long> missing;
 
   /**
    * Constructs an AccountUserDetailsService with the specified AccountService.
    *
    * @param accountService the service for account operations
+   * @param maxSize        the most usernames kept in the cache; the least recently used are dropped first
+   * @param missingMaxSize the most unknown usernames remembered; the least recently used are dropped first
+   * @param ttlSeconds     how long a cached entry is used before it is loaded again
    */
-    public AccountDetailsService(AccountService accountService) {
+    public AccountDetailsService(AccountService accountService,
+                                 @Value("${perkmanager.security.user-cache.max-size:10000}") int maxSize,
+                                 @Value("${perkmanager.security.user-cache.missing-max-size:1000}") int missingMaxSize,
+                                 @Value("${perkmanager.security.user-cache.ttl-seconds:300}") long ttlSeconds) {
         this.accountService = accountService;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cache = boundedMap(maxSize);
+        this.missing = boundedMap(missingMaxSize);
+    }
+
+    private static <V> Map<String, V> boundedMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
     }
 
   /**
    * Loads user details by username for Spring Security authentication.
-   * Retrieves the account from the database and converts it to a UserDetails object.
+   * Uses the cached credentials when they have not expired, and otherwise loads them from the database.
+   * A new UserDetails object is returned on every call, because Spring Security erases the
+   * password of the one it authenticates.
    *
    * @param username the username to load
    * @return a UserDetails object containing the user's authentication information
@@ -38,13 +73,86 @@ public class AccountDetailsService implements UserDetailsService {
    */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Account account = accountService.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        return User.builder()
-                .username(account.getUsername())
-                .password(account.getPassword())
-                .roles("USER")
-                .build();
+        long now = System.currentTimeMillis();
+        CachedCredentials credentials;
+        synchronized (cache) {
+            credentials = cache.get(username);
+            Long missingUntil = missing.get(username);
+            if (credentials == null && missingUntil != null && missingUntil > now) {
+                throw new UsernameNotFoundException("User not found");
+            }
+        }
+        if (credentials == null || credentials.expiresAt() <= now) {
+            credentials = accountService.findCredentials(username)
+                    .map(c -> CachedCredentials.of(c, now + ttlMillis))
+                    .orElse(null);
+            synchronized (cache) {
+                if (credentials == null) {
+                    cache.remove(username);
+                    missing.put(username, now + ttlMillis);
+                    throw new UsernameNotFoundException("User not found");
+                }
+                missing.remove(username);
+                cache.put(username, credentials);
+            }
+        }
+
+        return new AccountPrincipal(credentials.accountId(), credentials.username(), credentials.password(),
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+    }
+
+  /**
+   * Drops the cached credentials of an account once its creation or password change is committed.
+   *
+   * @param event the event naming the account whose credentials changed
+   */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialsChanged(AccountCredentialsChangedEvent event) {
+        evict(event.username());
+    }
+
+  /**
+   * Drops the cached credentials for a username.
+   *
+   * @param username the username to drop
+   */
+    public void evict(String username) {
+        synchronized (cache) {
+            cache.remove(username);
+            missing.remove(username);
+        }
+    }
+
+  /**
+   * Returns the number of usernames in the cache.
+   *
+   * @return the number of cached entries
+   */
+    int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+  /**
+   * Returns the number of unknown usernames remembered.
+   *
+   * @return the number of remembered unknown usernames
+   */
+    int missingCacheSize() {
+        synchronized (cache) {
+            return missing.size();
+        }
+    }
+
+  /**
+   * Credentials of one account.
+   */
+    private record CachedCredentials(Long accountId, String username, String password, long expiresAt) {
+
+        static CachedCredentials of(AccountCredentials credentials, long expiresAt) {
+            return new CachedCredentials(credentials.getId(), credentials.getUsername(),
+                    credentials.getPassword(), expiresAt);
+        }
     }
 }
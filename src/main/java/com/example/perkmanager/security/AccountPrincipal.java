@@ -0,0 +1,40 @@
+package com.example.perkmanager.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security principal for a logged-in account.
+ * Extends the standard {@link User} with the account's database ID so that
+ * request handlers can identify the account without looking it up by username.
+ *
+ */
+public class AccountPrincipal extends User {
+
+    private final Long accountId;
+
+    /**
+     * Constructs an AccountPrincipal.
+     *
+     * @param accountId   the ID of the account
+     * @param username    the account's username
+     * @param password    the account's encoded password
+     * @param authorities the authorities granted to the account
+     */
+    public AccountPrincipal(Long accountId, String username, String password,
+                            Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.accountId = accountId;
+    }
+
+    /**
+     * Returns the ID of the logged-in account.
+     *
+     * @return the account ID
+     */
+    public Long getAccountId() {
+        return accountId;
+    }
+}
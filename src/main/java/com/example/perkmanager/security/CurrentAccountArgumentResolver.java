@@ -0,0 +1,69 @@
+package com.example.perkmanager.security;
+
+import com.example.perkmanager.metrics.StageTimers;
+import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Resolves {@link CurrentAccount} controller parameters for the logged-in user.
+ * <p>
+ * The account is loaded at most once per request and stored as the {@value #ATTRIBUTE}
+ * request attribute, where views can read it too. Guests resolve to {@code null}.
+ * The lookup is timed as the {@code account} stage of the matched endpoint.
+ *
+ */
+public class CurrentAccountArgumentResolver implements HandlerMethodArgumentResolver {
+
+    /** Request attribute holding the resolved account. */
+    public static final String ATTRIBUTE = "currentAccount";
+
+    private final AccountService accountService;
+    private final StageTimers stageTimers;
+
+    /**
+     * Constructs a CurrentAccountArgumentResolver.
+     *
+     * @param accountService the service used to load the account
+     * @param stageTimers    the timers the lookup is recorded in
+     */
+    public CurrentAccountArgumentResolver(AccountService accountService, StageTimers stageTimers) {
+        this.accountService = accountService;
+        this.stageTimers = stageTimers;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CurrentAccount.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public CurrentAccount resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                          NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object cached = webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof CurrentAccount account) return account;
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+
+        Object pattern = webRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        CurrentAccount account = stageTimers.time(pattern != null ? pattern.toString() : "unknown", "account",
+                () -> accountService.findCurrentAccount(auth.getName()).orElse(null));
+        if (account != null) {
+            webRequest.setAttribute(ATTRIBUTE, account, RequestAttributes.SCOPE_REQUEST);
+        }
+        return account;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.perkmanager.services;
+
+/**
+ * Published by {@link AccountService} when an account is created or its password changes,
+ * so that cached credentials for the username can be dropped.
+ *
+ * @param username the username whose credentials changed
+ */
+public record AccountCredentialsChangedEvent(String username) {}
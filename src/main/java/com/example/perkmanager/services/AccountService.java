@@ -3,12 +3,17 @@ package com.example.perkmanager.services;
 import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repositories.AccountCredentials;
+import com.example.perkmanager.repositories.AccountLink;
 import com.example.perkmanager.repositories.AccountRepository;
+import com.example.perkmanager.utils.LongHashSet;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.example.perkmanager.model.Perk;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,16 +28,23 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersion dataVersion;
 
     /**
      * Constructs an AccountService with the specified repository and password encoder.
      *
      * @param accountRepository the repository for account data access
      * @param passwordEncoder   the encoder for password hashing
+     * @param eventPublisher    publishes {@link AccountCredentialsChangedEvent}s when credentials change
+     * @param dataVersion       the version of the page data, bumped when saved perks or memberships change
      */
-    public AccountService(AccountRepository accountRepository, PasswordEncoder passwordEncoder) {
+    public AccountService(AccountRepository accountRepository, PasswordEncoder passwordEncoder,
+                          ApplicationEventPublisher eventPublisher, DataVersion dataVersion) {
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.dataVersion = dataVersion;
     }
 
     /**
@@ -51,7 +63,22 @@ public class AccountService {
         Account account = new Account();
         account.setUsername(username);
         account.setPassword(passwordEncoder.encode(password));
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountCredentialsChangedEvent(username));
+        return saved;
+    }
+
+    /**
+     * Changes the password of an account.
+     * The new password is encoded before storage.
+     *
+     * @param account     the account whose password changes
+     * @param newPassword the new plain text password (will be encoded)
+     */
+    public void changePassword(Account account, String newPassword) {
+        account.setPassword(passwordEncoder.encode(newPassword));
+        accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountCredentialsChangedEvent(account.getUsername()));
     }
 
     /**
@@ -65,6 +92,43 @@ public class AccountService {
         return accountRepository.findByUsername(username);
     }
 
+    /**
+     * Finds the ID, username and encoded password of an account, without loading
+     * the rest of the account.
+     *
+     * @param username the username to search for
+     * @return an Optional containing the account's credentials if found, empty otherwise
+     */
+    @Transactional(readOnly = true)
+    public Optional<AccountCredentials> findCredentials(String username) {
+        return accountRepository.findCredentialsByUsername(username);
+    }
+
+    /**
+     * Loads the ID, membership IDs and saved-perk IDs of an account with a single query.
+     *
+     * @param username the username of the account
+     * @return an Optional containing the account if found, empty otherwise
+     */
+    @Transactional(readOnly = true)
+    public Optional<CurrentAccount> findCurrentAccount(String username) {
+        List<AccountLink> links = accountRepository.findLinksByUsername(username);
+        if (links.isEmpty()) return Optional.empty();
+
+        LongHashSet membershipIds = new LongHashSet(links.size());
+        LongHashSet savedPerkIds = new LongHashSet(links.size());
+        for (AccountLink link : links) {
+            if (link.getLinkedId() == null) continue;
+            if (AccountLink.SAVED_PERK.equals(link.getLinkType())) {
+                savedPerkIds.add(link.getLinkedId());
+            } else {
+                membershipIds.add(link.getLinkedId());
+            }
+        }
+        AccountLink first = links.get(0);
+        return Optional.of(new CurrentAccount(first.getAccountId(), first.getUsername(), membershipIds, savedPerkIds));
+    }
+
     /**
      * Links a perk to its creator account.
      * Establishes the bidirectional relationship between the account and perk.
@@ -91,6 +155,7 @@ public class AccountService {
         // When a logged-in user searches perks, you can filter: perk.getMembership() in account.getMemberships()
         account.addMembership(membership);
         accountRepository.save(account);
+        dataVersion.bump();
     }
 
     /**
@@ -104,6 +169,7 @@ public class AccountService {
     public void removeMembership(Account account, Membership membership) {
         account.removeMembership(membership);
         accountRepository.save(account);
+        dataVersion.bump();
     }
 
     /**
@@ -117,6 +183,7 @@ public class AccountService {
     public void addPerkToProfile(Account account, Perk perk) {
         account.addPerkToProfile(perk);
         accountRepository.save(account);
+        dataVersion.bump();
     }
 
     /**
@@ -128,5 +195,6 @@ public class AccountService {
     public void removePerkFromProfile(Account account, Perk perk) {
         account.removePerkFromProfile(perk);
         accountRepository.save(account);
+        dataVersion.bump();
     }
 }
@@ -0,0 +1,85 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.utils.LongHashSet;
+
+/**
+ * The logged-in account as seen by a single request: its ID, username, and the IDs of
+ * its memberships and saved perks.
+ * <p>
+ * Loaded with one query by {@link AccountService#findCurrentAccount} and resolved at most once per
+ * request, so controllers and views can check memberships and saved perks without loading the
+ * {@link com.example.perkmanager.model.Account} entity or its collections.
+ * The IDs are kept in {@link LongHashSet}s, so each check is a constant-time lookup
+ * that does not allocate, however many perks the account has saved.
+ *
+ */
+public final class CurrentAccount {
+
+    private final Long id;
+    private final String username;
+    private final LongHashSet membershipIds;
+    private final LongHashSet savedPerkIds;
+
+    /**
+     * Constructs a CurrentAccount.
+     *
+     * @param id            the ID of the account
+     * @param username      the account's username
+     * @param membershipIds the IDs of the account's memberships; must not be modified afterwards
+     * @param savedPerkIds  the IDs of the perks saved to the account's profile; must not be modified afterwards
+     */
+    public CurrentAccount(Long id, String username, LongHashSet membershipIds, LongHashSet savedPerkIds) {
+        this.id = id;
+        this.username = username;
+        this.membershipIds = membershipIds;
+        this.savedPerkIds = savedPerkIds;
+    }
+
+    /**
+     * @return the ID of the account
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the account's username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return the IDs of the account's memberships
+     */
+    public LongHashSet getMembershipIds() {
+        return membershipIds;
+    }
+
+    /**
+     * @return the IDs of the perks saved to the account's profile
+     */
+    public LongHashSet getSavedPerkIds() {
+        return savedPerkIds;
+    }
+
+    /**
+     * Checks whether the account has a membership.
+     *
+     * @param membershipId the ID of the membership
+     * @return true if the account has the membership
+     */
+    public boolean hasMembership(Long membershipId) {
+        return membershipId != null && membershipIds.contains(membershipId);
+    }
+
+    /**
+     * Checks whether the account has saved a perk.
+     *
+     * @param perkId the ID of the perk
+     * @return true if the perk is saved to the account's profile
+     */
+    public boolean hasSavedPerk(Long perkId) {
+        return perkId != null && savedPerkIds.contains(perkId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.perkmanager.services;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the data shown on the perk, membership and product pages.
+ * <p>
+ * Every change that can alter one of those pages bumps the version: new perks, memberships and
+ * products, votes (when toggled, and when the vote buffer writes the new scores), saved perks and
+ * memberships, and expired perks. The pages use the version as their ETag, so a browser holding
+ * the current version gets a 304 without the page being loaded or rendered.
+ * <p>
+ * The version starts at the startup time, so ETags handed out before a restart never match.
+ *
+ */
+@Service
+public class DataVersion {
+
+    private final AtomicLong version;
+    private volatile long lastModified;
+
+    /**
+     * Constructs a DataVersion starting at the current time.
+     */
+    public DataVersion() {
+        long now = System.currentTimeMillis();
+        this.version = new AtomicLong(now);
+        this.lastModified = now;
+    }
+
+    /**
+     * Returns the current version.
+     *
+     * @return the version
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Returns when the version last changed.
+     *
+     * @return the time of the last change in epoch milliseconds
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Records a change. Inside a transaction the version is bumped once the transaction commits,
+     * so a page rendered before the commit is never tagged with the new version.
+     */
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    advance();
+                }
+            });
+        } else {
+            advance();
+        }
+    }
+
+    /**
+     * Records that perks expired and dropped out of the perk lists.
+     *
+     * @param event the expired perks
+     */
+    @EventListener
+    public void onPerksExpired(PerksExpiredEvent event) {
+        bump();
+    }
+
+    private void advance() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+}
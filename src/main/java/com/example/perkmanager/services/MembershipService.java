@@ -4,16 +4,23 @@ import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.repositories.MembershipRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Service class for managing membership-related business logic.
  * Handles CRUD operations for memberships and provides utility methods for membership management.
  * All operations are transactional to ensure data consistency.
+ * <p>
+ * The membership list and the sorted membership types are cached together as one
+ * versioned snapshot. Memberships only change through {@link #createMembership}, which
+ * bumps the version, so the next read reloads the snapshot.
  *
  */
 @Service
@@ -21,40 +28,98 @@ import java.util.stream.Collectors;
 public class MembershipService {
 
     private final MembershipRepository membershipRepository;
+    private final DataVersion dataVersion;
+
+    /** Incremented whenever the memberships change; snapshots with an older version are stale. */
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong catalogHits = new AtomicLong();
+    private final AtomicLong catalogMisses = new AtomicLong();
+    private volatile Catalog catalog;
 
     /**
      * Constructs a MembershipService with the specified repository.
      *
      * @param membershipRepository the repository for membership data access
+     * @param dataVersion          the version of the page data, bumped when memberships change
      */
-    public MembershipService(MembershipRepository membershipRepository) {
+    public MembershipService(MembershipRepository membershipRepository, DataVersion dataVersion) {
         this.membershipRepository = membershipRepository;
+        this.dataVersion = dataVersion;
     }
 
     /**
      * Retrieves all memberships in the system.
+     * Served from the cached catalog; the returned list is read-only.
      *
      * @return a list of all memberships
      */
     @Transactional(readOnly = true)
     public List<Membership> getAllMemberships() {
-        return membershipRepository.findAll();
+        return catalog().memberships();
     }
 
     /**
      * Retrieves all unique membership types in the system.
      * Returns a sorted list of distinct membership types (e.g., "Credit card", "Air Miles").
+     * Served from the cached catalog; the returned list is read-only.
      *
      * @return a sorted list of unique membership types
      */
     @Transactional(readOnly = true)
     public List<String> getAllMembershipTypes() {
-        return membershipRepository.findAll().stream()
+        return catalog().types();
+    }
+
+    /**
+     * Returns hit and miss counts for the membership catalog cache.
+     * Published to Micrometer by {@link com.example.perkmanager.metrics.MembershipCatalogMetrics}.
+     *
+     * @return the cache statistics
+     */
+    public CatalogStats getCatalogStats() {
+        return new CatalogStats(catalogHits.get(), catalogMisses.get(), catalogVersion.get());
+    }
+
+    /**
+     * Returns the cached catalog, reloading it if memberships changed since it was built.
+     */
+    private Catalog catalog() {
+        Catalog current = catalog;
+        long version = catalogVersion.get();
+        if (current != null && current.version() == version) {
+            catalogHits.incrementAndGet();
+            return current;
+        }
+        catalogMisses.incrementAndGet();
+
+        // Tagged with the version read before the query: a change made during the load
+        // bumps the version again, so this snapshot is not reused after it
+        List<Membership> memberships = List.copyOf(membershipRepository.findAll());
+        List<String> types = memberships.stream()
                 .map(Membership::getType)
                 .filter(Objects::nonNull)
                 .distinct()
                 .sorted()
-                .collect(Collectors.toList());
+                .collect(Collectors.toUnmodifiableList());
+        Catalog loaded = new Catalog(version, memberships, types);
+        catalog = loaded;
+        return loaded;
+    }
+
+    /**
+     * Marks the cached catalog as stale. Inside a transaction the version is bumped again
+     * after commit, so that a reload that ran before the commit is not kept.
+     */
+    private void invalidateCatalog() {
+        catalogVersion.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    catalogVersion.incrementAndGet();
+                }
+            });
+        }
     }
 
     /**
@@ -78,6 +143,27 @@ public class MembershipService {
      */
     public Membership createMembership(String type, String organizationName, String description) {
         Membership membership = new Membership(type, organizationName, description);
-        return membershipRepository.save(membership);
+        Membership saved = membershipRepository.save(membership);
+        invalidateCatalog();
+        dataVersion.bump();
+        return saved;
     }
+
+    /**
+     * A snapshot of all memberships and their distinct types.
+     *
+     * @param version     the catalog version the snapshot was loaded at
+     * @param memberships all memberships
+     * @param types       the sorted, distinct membership types
+     */
+    private record Catalog(long version, List<Membership> memberships, List<String> types) {}
+
+    /**
+     * Hit and miss counts for the membership catalog cache.
+     *
+     * @param hits    reads served from the cached catalog
+     * @param misses  reads that had to load memberships from the database
+     * @param version the current catalog version (number of invalidations)
+     */
+    public record CatalogStats(long hits, long misses, long version) {}
 }
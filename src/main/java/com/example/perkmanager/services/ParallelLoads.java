@@ -0,0 +1,164 @@
+package com.example.perkmanager.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent data loads of a request at the same time, so the request waits for
+ * the slowest load rather than for all of them one after another.
+ * <p>
+ * A request starts the loads it can run in the background, does its own load on the request
+ * thread, and then {@linkplain Load#join() joins} the background loads. Each background load has
+ * a timeout, counted from when it was started; a load that runs over it is cancelled.
+ * The timeout only bounds how long the caller waits. Cancelling interrupts the load, but a
+ * load blocked in the JDBC driver keeps its pool thread and database connection until the
+ * driver returns, so statement timeouts are still what bounds the database work. The load
+ * the caller runs on its own thread has no timeout here either.
+ * <p>
+ * Only loads that actually wait on something, such as a database query, are worth starting
+ * here; handing an in-memory lookup to the pool costs more than it saves.
+ * <p>
+ * The loads run on a bounded pool, sized below the database connection pool. When every pool
+ * thread is busy, a load runs on the thread that starts it instead of waiting in a queue, so a
+ * busy server falls back to loading one thing after another. Loads run outside the request
+ * thread's persistence context and security context, so they must not need either: entities
+ * they return are detached, and only their eagerly fetched associations can be used.
+ *
+ */
+@Component
+public class ParallelLoads {
+
+    private final ExecutorService executor;
+    private final Duration defaultTimeout;
+
+    /**
+     * Constructs a ParallelLoads.
+     *
+     * @param threads        the most loads run in the background at once
+     * @param defaultTimeout the timeout of loads started without one, in milliseconds
+     */
+    public ParallelLoads(@Value("${perkmanager.loads.threads:8}") int threads,
+                         @Value("${perkmanager.loads.timeout-ms:5000}") long defaultTimeout) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = work -> {
+            Thread thread = new Thread(work, "parallel-load-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // No queue: a load either gets an idle thread straight away or runs on the caller
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+        this.defaultTimeout = Duration.ofMillis(defaultTimeout);
+    }
+
+    /**
+     * Starts a load in the background with the default timeout.
+     *
+     * @param name the name of the load, used in the timeout message
+     * @param work the load
+     * @param <T>  the result type
+     * @return the running load
+     */
+    public <T> Load<T> start(String name, Supplier<T> work) {
+        return start(name, defaultTimeout, work);
+    }
+
+    /**
+     * Starts a load in the background.
+     *
+     * @param name    the name of the load, used in the timeout message
+     * @param timeout how long {@link Load#join()} waits for the load, counted from now
+     * @param work    the load
+     * @param <T>     the result type
+     * @return the running load
+     */
+    public <T> Load<T> start(String name, Duration timeout, Supplier<T> work) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        FutureTask<T> task = new FutureTask<>(work::get);
+        executor.execute(task);
+        return new Load<>(name, timeout, deadline, task);
+    }
+
+    /**
+     * Stops the pool threads on shutdown, interrupting any load still running.
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A load started by {@link #start}.
+     *
+     * @param <T> the result type
+     */
+    public static final class Load<T> {
+
+        private final String name;
+        private final Duration timeout;
+        private final long deadline;
+        private final Future<T> future;
+
+        private Load(String name, Duration timeout, long deadline, Future<T> future) {
+            this.name = name;
+            this.timeout = timeout;
+            this.deadline = deadline;
+            this.future = future;
+        }
+
+        /**
+         * Waits for the load to finish, up to the end of its timeout.
+         * An exception thrown by the load is rethrown here.
+         *
+         * @return the result of the load
+         * @throws LoadTimeoutException if the load did not finish in time; it is then cancelled
+         */
+        public T join() {
+            try {
+                return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                throw new LoadTimeoutException("Loading " + name + " took longer than " + timeout.toMillis() + " ms");
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading " + name, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+                if (cause instanceof Error error) throw error;
+                throw new IllegalStateException("Loading " + name + " failed", cause);
+            }
+        }
+    }
+
+    /**
+     * Thrown when a background load does not finish within its timeout.
+     */
+    public static class LoadTimeoutException extends RuntimeException {
+
+        /**
+         * Constructs a LoadTimeoutException.
+         *
+         * @param message the load and the timeout it ran over
+         */
+        public LoadTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.perkmanager.services;
+
+import java.util.Map;
+
+/**
+ * The logged-in account's vote and save state for the perks on one page.
+ * Perks missing from a map have state 0 (not voted / not saved).
+ *
+ * @param voteStates perk ID to vote state (1 = upvoted, -1 = downvoted, 0 = no vote)
+ * @param saveStates perk ID to save state (1 = saved, 0 = not saved)
+ */
+public record PerkAccountStates(Map<Long, Integer> voteStates, Map<Long, Integer> saveStates) {
+
+    /**
+     * Returns the states of an anonymous visitor, who has no votes or saved perks.
+     *
+     * @return empty states
+     */
+    public static PerkAccountStates none() {
+        return new PerkAccountStates(Map.of(), Map.of());
+    }
+
+    /**
+     * Returns the vote state for a perk.
+     *
+     * @param perkId the ID of the perk
+     * @return 1 if upvoted, -1 if downvoted, 0 otherwise
+     */
+    public int voteState(Long perkId) {
+        return voteStates.getOrDefault(perkId, 0);
+    }
+
+    /**
+     * Returns the save state for a perk.
+     *
+     * @param perkId the ID of the perk
+     * @return 1 if saved, 0 otherwise
+     */
+    public int saveState(Long perkId) {
+        return saveStates.getOrDefault(perkId, 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.perkmanager.services;
+
+import java.util.Optional;
+
+/**
+ * Position of the last perk on a page, used to load the next page by keyset instead of by offset
+ * (see {@link PerkService#filterPerksAfter}).
+ * <p>
+ * A cursor holds the value of the sort key of the last perk and its ID, and is written as
+ * {@code value:id}, for example {@code 12:345} after a perk with score 12, or {@code :345} when
+ * the value is null (a perk without an expiry date, or when sorting by ID alone).
+ * Expiry dates are written as epoch milliseconds.
+ *
+ * @param value the sort key value of the last perk, or null
+ * @param id    the ID of the last perk
+ */
+public record PerkCursor(Long value, long id) {
+
+    /**
+     * Parses a cursor written by {@link #toString()}.
+     *
+     * @param text the cursor text, may be null
+     * @return the cursor, or empty if the text is blank or malformed
+     */
+    public static Optional<PerkCursor> parse(String text) {
+        if (text == null || text.isBlank()) return Optional.empty();
+        int separator = text.lastIndexOf(':');
+        if (separator < 0) return Optional.empty();
+        try {
+            String value = text.substring(0, separator).trim();
+            long id = Long.parseLong(text.substring(separator + 1).trim());
+            return Optional.of(new PerkCursor(value.isEmpty() ? null : Long.valueOf(value), id));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the cursor as {@code value:id}, the form accepted by {@link #parse}.
+     *
+     * @return the cursor text
+     */
+    @Override
+    public String toString() {
+        return (value != null ? value.toString() : "") + ":" + id;
+    }
+}
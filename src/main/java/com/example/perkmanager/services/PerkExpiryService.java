@@ -0,0 +1,196 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repositories.PerkExpiry;
+import com.example.perkmanager.repositories.PerkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Retires perks when their expiry date passes.
+ * <p>
+ * Every perk that has an expiry date and is not yet expired waits in a priority queue ordered by
+ * expiry. A single task is scheduled on the {@link TaskScheduler} for the earliest expiry; when it
+ * fires, all perks that are due are marked as expired in the database with one batched update, a
+ * {@link PerksExpiredEvent} tells the leaderboards and caches to drop them, and the task is
+ * scheduled again for the next expiry. Read paths can then rely on the {@code expired} column
+ * instead of comparing every expiry date to the current time.
+ * <p>
+ * The queue is loaded when the application is ready, including perks whose date passed while the
+ * application was down; those expire straight away. New perks are added by
+ * {@link PerkService#createPerk} once their transaction commits.
+ *
+ */
+@Service
+public class PerkExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(PerkExpiryService.class);
+
+    /** Maximum number of perks marked as expired per update. */
+    static final int BATCH_SIZE = 500;
+
+    /** How long to wait before retrying after a failed update. */
+    static final long RETRY_DELAY_MS = 30_000;
+
+    private static final Comparator<Pending> BY_EXPIRY = Comparator
+            .comparingLong(Pending::expiry)
+            .thenComparingLong(Pending::perkId);
+
+    private final PerkRepository perkRepository;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>(BY_EXPIRY);
+    private boolean started;
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt = Long.MAX_VALUE;
+
+    /**
+     * Constructs a PerkExpiryService.
+     *
+     * @param perkRepository the repository used to load the perks waiting to expire at startup
+     * @param jdbc           the JDBC template used to mark perks as expired
+     * @param taskScheduler  the scheduler that runs the expiry task
+     * @param eventPublisher publishes {@link PerksExpiredEvent}s after perks expire
+     */
+    public PerkExpiryService(PerkRepository perkRepository,
+                             NamedParameterJdbcTemplate jdbc,
+                             TaskScheduler taskScheduler,
+                             ApplicationEventPublisher eventPublisher) {
+        this.perkRepository = perkRepository;
+        this.jdbc = jdbc;
+        this.taskScheduler = taskScheduler;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Loads every perk waiting to expire and schedules the first expiry.
+     * Runs once the application is ready, so that every listener of {@link PerksExpiredEvent}
+     * is registered before perks that expired during downtime are retired.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        queue.clear();
+        for (PerkExpiry expiry : perkRepository.findPendingExpiries()) {
+            queue.add(new Pending(expiry.getId(), expiry.getExpiryDate().getTimeInMillis()));
+        }
+        started = true;
+        schedule(0);
+    }
+
+    /**
+     * Schedules a perk to expire on its expiry date. Perks without an expiry date, or that are
+     * already expired, are ignored. Inside a transaction the perk is added once the transaction
+     * commits, so the expiry update never runs before the perk's row is visible.
+     *
+     * @param perk the saved perk
+     */
+    public void register(Perk perk) {
+        if (perk.getId() == null || perk.getExpiryDate() == null || perk.isExpired()) return;
+        Pending pending = new Pending(perk.getId(), perk.getExpiryDate().getTimeInMillis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(pending);
+                }
+            });
+        } else {
+            enqueue(pending);
+        }
+    }
+
+    /**
+     * Returns the number of perks waiting to expire.
+     *
+     * @return the number of pending perks
+     */
+    public synchronized int pendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Marks every perk whose expiry date has passed as expired and schedules the next run.
+     * Perks that cannot be written are put back and retried after {@value #RETRY_DELAY_MS} ms.
+     */
+    void expireDue() {
+        List<Pending> due = new ArrayList<>();
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpAt = Long.MAX_VALUE;
+            long now = System.currentTimeMillis();
+            while (!queue.isEmpty() && queue.peek().expiry() <= now) {
+                due.add(queue.poll());
+            }
+        }
+
+        List<Long> expired = new ArrayList<>(due.size());
+        long retryAfter = 0;
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<Pending> batch = due.subList(from, Math.min(from + BATCH_SIZE, due.size()));
+            try {
+                markExpired(batch);
+                batch.forEach(pending -> expired.add(pending.perkId()));
+            } catch (RuntimeException e) {
+                log.error("Failed to expire {} perks, will retry", due.size() - from, e);
+                synchronized (this) {
+                    queue.addAll(due.subList(from, due.size()));
+                }
+                retryAfter = System.currentTimeMillis() + RETRY_DELAY_MS;
+                break;
+            }
+        }
+        if (!expired.isEmpty()) {
+            eventPublisher.publishEvent(new PerksExpiredEvent(List.copyOf(expired)));
+        }
+        synchronized (this) {
+            schedule(retryAfter);
+        }
+    }
+
+    private void markExpired(List<Pending> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        batch.forEach(pending -> ids.add(pending.perkId()));
+        jdbc.update("UPDATE perks SET expired = TRUE WHERE id IN (:ids) AND expired = FALSE",
+                new MapSqlParameterSource("ids", ids));
+    }
+
+    private synchronized void enqueue(Pending pending) {
+        queue.add(pending);
+        if (started) schedule(0);
+    }
+
+    /**
+     * Makes sure a run is scheduled for the earliest pending expiry, but not before {@code notBefore}.
+     */
+    private void schedule(long notBefore) {
+        if (queue.isEmpty()) return;
+        long at = Math.max(queue.peek().expiry(), notBefore);
+        if (wakeUp != null && wakeUpAt <= at) return;
+        if (wakeUp != null) wakeUp.cancel(false);
+        wakeUpAt = at;
+        wakeUp = taskScheduler.schedule(this::expireDue, Instant.ofEpochMilli(at));
+    }
+
+    /**
+     * A perk waiting to expire.
+     *
+     * @param perkId the ID of the perk
+     * @param expiry the perk's expiry time in epoch milliseconds
+     */
+    record Pending(long perkId, long expiry) {}
+}
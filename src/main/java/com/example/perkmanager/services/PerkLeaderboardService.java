@@ -0,0 +1,209 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repositories.PerkRanking;
+import com.example.perkmanager.repositories.PerkRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory leaderboards for the home page.
+ * <p>
+ * Keeps two sorted indexes of perk IDs:
+ * <ul>
+ *     <li>top-rated: score descending, then earliest expiry (perks without expiry last);</li>
+ *     <li>expiring soon: unexpired perks by earliest expiry, then score descending.</li>
+ * </ul>
+ * The indexes are built once at startup and then updated as perks are created and votes are
+ * written, so reading a page costs O(offset + page size) instead of a scan and sort of every perk.
+ * The skip lists have no rank index, so a page is found by stepping over the entries before it:
+ * the first pages cost O(page size), but page {@code n} costs O(n * page size). The home page
+ * only has Previous and Next links, so it is almost always the first pages that are read;
+ * if deep pages become common, keep subtree sizes (an order-statistic tree) instead.
+ * Perks drop out of the expiring index when {@link PerkExpiryService} marks them as expired
+ * ({@link PerksExpiredEvent}); reads never compare expiry dates to the current time.
+ *
+ */
+@Service
+public class PerkLeaderboardService {
+
+    /** Expiry value used for perks that never expire, so they sort after every real date. */
+    static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private static final Comparator<Entry> TOP_RATED = Comparator
+            .comparingInt(Entry::score).reversed()
+            .thenComparingLong(Entry::expiry)
+            .thenComparingLong(Entry::id);
+
+    private static final Comparator<Entry> EXPIRING = Comparator
+            .comparingLong(Entry::expiry)
+            .thenComparing(Comparator.comparingInt(Entry::score).reversed())
+            .thenComparingLong(Entry::id);
+
+    private final PerkRepository perkRepository;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> topRated = new ConcurrentSkipListSet<>(TOP_RATED);
+    private final NavigableSet<Entry> expiring = new ConcurrentSkipListSet<>(EXPIRING);
+    private final AtomicInteger expiringCount = new AtomicInteger();
+
+    /**
+     * Constructs a PerkLeaderboardService.
+     *
+     * @param perkRepository the repository used to load perk rankings at startup
+     */
+    public PerkLeaderboardService(PerkRepository perkRepository) {
+        this.perkRepository = perkRepository;
+    }
+
+    /**
+     * Builds both indexes from the ID, score, expiry date and expired flag of every perk.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        entries.clear();
+        topRated.clear();
+        expiring.clear();
+        expiringCount.set(0);
+        for (PerkRanking ranking : perkRepository.findAllRankings()) {
+            add(new Entry(ranking.getId(), ranking.getScore(), expiryOf(ranking.getExpiryDate()),
+                    ranking.isExpired()));
+        }
+    }
+
+    /**
+     * Adds a perk to the leaderboards, or repositions it if its score or expiry date changed.
+     *
+     * @param perk the created or updated perk
+     */
+    public synchronized void update(Perk perk) {
+        if (perk.getId() == null) return;
+        Entry old = entries.get(perk.getId());
+        if (old != null) remove(old);
+        add(new Entry(perk.getId(), perk.getRating(), expiryOf(perk.getExpiryDate()), perk.isExpired()));
+    }
+
+    /**
+     * Moves a perk after its score changed by the given amount.
+     * Unknown perks are ignored.
+     *
+     * @param perkId     the ID of the perk
+     * @param scoreDelta the change in score (upvotes minus downvotes)
+     */
+    public synchronized void adjustScore(long perkId, int scoreDelta) {
+        if (scoreDelta == 0) return;
+        Entry old = entries.get(perkId);
+        if (old == null) return;
+        remove(old);
+        add(new Entry(perkId, old.score() + scoreDelta, old.expiry(), old.expired()));
+    }
+
+    /**
+     * Takes perks that have expired off the expiring leaderboard.
+     * They stay on the top-rated leaderboard.
+     *
+     * @param event the event listing the expired perks
+     */
+    @EventListener
+    public synchronized void onPerksExpired(PerksExpiredEvent event) {
+        for (Long perkId : event.perkIds()) {
+            Entry old = entries.get(perkId);
+            if (old == null || old.expired()) continue;
+            remove(old);
+            add(new Entry(perkId, old.score(), old.expiry(), true));
+        }
+    }
+
+    /**
+     * Returns the IDs of one page of top-rated perks.
+     * Steps over the {@code page * size} entries before the page, see the class comment.
+     *
+     * @param page the page number (0-indexed)
+     * @param size the page size
+     * @return the perk IDs in leaderboard order
+     */
+    public List<Long> topRated(int page, int size) {
+        return page(topRated, page, size);
+    }
+
+    /**
+     * Returns the IDs of one page of unexpired perks, soonest expiry first.
+     * Steps over the {@code page * size} entries before the page, see the class comment.
+     *
+     * @param page the page number (0-indexed)
+     * @param size the page size
+     * @return the perk IDs in leaderboard order
+     */
+    public List<Long> expiringSoon(int page, int size) {
+        return page(expiring, page, size);
+    }
+
+    /**
+     * Returns the number of perks on the top-rated leaderboard.
+     *
+     * @return the number of perks
+     */
+    public int topRatedCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of unexpired perks that have an expiry date.
+     *
+     * @return the number of perks
+     */
+    public int expiringCount() {
+        return expiringCount.get();
+    }
+
+    private static List<Long> page(NavigableSet<Entry> index, int page, int size) {
+        if (page < 0 || size <= 0) return List.of();
+        long skip = (long) page * size;
+        List<Long> ids = new ArrayList<>(size);
+        for (Entry entry : index) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            ids.add(entry.id());
+            if (ids.size() == size) break;
+        }
+        return ids;
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.id(), entry);
+        topRated.add(entry);
+        if (!entry.expired() && entry.expiry() != NO_EXPIRY && expiring.add(entry)) {
+            expiringCount.incrementAndGet();
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.id());
+        topRated.remove(entry);
+        if (expiring.remove(entry)) {
+            expiringCount.decrementAndGet();
+        }
+    }
+
+    private static long expiryOf(Calendar expiryDate) {
+        return expiryDate != null ? expiryDate.getTimeInMillis() : NO_EXPIRY;
+    }
+
+    /**
+     * A perk's position on the leaderboards.
+     *
+     * @param id      the ID of the perk
+     * @param score   the perk's score
+     * @param expiry  the perk's expiry time in epoch milliseconds, or {@link #NO_EXPIRY}
+     * @param expired whether the perk has been marked as expired
+     */
+    record Entry(long id, int score, long expiry, boolean expired) {}
+}
@@ -0,0 +1,357 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repositories.PerkRepository;
+import com.example.perkmanager.repositories.PerkSearchFields;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index for keyword search over perks, for deployments whose database has no
+ * full-text search. Enabled with {@code perkmanager.search.engine=memory}; otherwise searches use
+ * the PostgreSQL search column (see {@link com.example.perkmanager.repositories.PerkSpecifications#matchesSearch}).
+ * <p>
+ * Each perk is a document made of its benefit, region, product name and company, and membership
+ * type and organization name. Text is split into lowercase words with accents removed, so
+ * "nestle" finds "Nestlé". Every word maps to a postings list: the sorted document numbers of the
+ * perks containing it, kept in an {@code int[]}. A search returns the perks containing every word
+ * of the query, found by intersecting the postings lists smallest first, so its cost depends on the
+ * rarest word rather than on the size of the catalog.
+ * <p>
+ * The region filter of a search is served the same way; without search text it stays in SQL.
+ * It is a case-insensitive substring match, so "anada" finds "Canada". Each lowercase region is also split into trigrams, its overlapping three-character
+ * substrings. The perks whose region contains a filter of three or more characters are among those
+ * whose region has every trigram of the filter. The filter's rarest trigram picks the candidates,
+ * and each candidate's region is then checked for the whole filter.
+ * <p>
+ * The index is built once at startup and then updated as perks are created. Document numbers are
+ * handed out in the order perks are added, so appending a new perk keeps every list sorted.
+ *
+ */
+@Service
+public class PerkSearchIndex {
+
+    /** Number of perks loaded per query while the index is built. */
+    static final int BATCH_SIZE = 10_000;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private final PerkRepository perkRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Postings> regionTrigrams = new HashMap<>();
+    /** One shared instance of each distinct lowercase region. */
+    private final Map<String, String> regionValues = new HashMap<>();
+    /** Perk ID of each document number. */
+    private long[] perkIds = new long[1024];
+    /** Lowercase region of each document number, or null. */
+    private String[] regions = new String[1024];
+    private int documents;
+
+    /**
+     * Constructs a PerkSearchIndex.
+     *
+     * @param perkRepository the repository used to load the perks' text at startup
+     * @param engine         the search engine to use: "memory" enables this index, anything else
+     *                       leaves searching to the database
+     */
+    public PerkSearchIndex(PerkRepository perkRepository,
+                           @Value("${perkmanager.search.engine:database}") String engine) {
+        this.perkRepository = perkRepository;
+        this.enabled = "memory".equalsIgnoreCase(engine.trim());
+    }
+
+    /**
+     * Returns whether searches should use this index instead of the database.
+     *
+     * @return true if the index is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Builds the index from the text of every perk, loaded in batches of {@value #BATCH_SIZE}.
+     * Does nothing when the index is disabled.
+     */
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            regionTrigrams.clear();
+            regionValues.clear();
+            perkIds = new long[1024];
+            regions = new String[1024];
+            documents = 0;
+            long afterId = 0;
+            List<PerkSearchFields> batch;
+            do {
+                batch = perkRepository.findSearchFieldsAfter(afterId, Limit.of(BATCH_SIZE));
+                for (PerkSearchFields fields : batch) {
+                    addDocument(fields.getId(), fields.getRegion(), fields.getBenefit(),
+                            fields.getProductName(), fields.getCompany(),
+                            fields.getMembershipType(), fields.getOrganizationName());
+                    afterId = fields.getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a newly created perk to the index. Does nothing when the index is disabled.
+     * Each perk should be added once.
+     *
+     * @param perk the saved perk
+     */
+    public void add(Perk perk) {
+        if (!enabled || perk.getId() == null) return;
+        String productName = perk.getProduct() != null ? perk.getProduct().getName() : null;
+        String company = perk.getProduct() != null ? perk.getProduct().getCompany() : null;
+        String membershipType = perk.getMembership() != null ? perk.getMembership().getType() : null;
+        String organizationName = perk.getMembership() != null ? perk.getMembership().getOrganizationName() : null;
+        add(perk.getId(), perk.getRegion(), perk.getBenefit(), productName, company,
+                membershipType, organizationName);
+    }
+
+    /**
+     * Adds a perk with the given text to the index. Does nothing when the index is disabled.
+     *
+     * @param perkId the ID of the perk
+     * @param region the perk's region, searchable by keyword and by the region filter; may be null
+     * @param texts  the perk's other searchable text; null values are skipped
+     */
+    public void add(long perkId, String region, String... texts) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            addDocument(perkId, region, texts);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the perks whose text contains every word of the query.
+     *
+     * @param query the words to search for
+     * @return the IDs of the matching perks, in no particular order; empty if the query has no words
+     */
+    public long[] search(String query) {
+        return search(query, null);
+    }
+
+    /**
+     * Finds the perks whose text contains every word of the query and whose region contains the
+     * given text, ignoring case. Either criterion may be left out.
+     *
+     * @param query  the words to search for, may be blank
+     * @param region the text the region must contain, may be blank
+     * @return the IDs of the matching perks, in no particular order; empty if both criteria are blank
+     */
+    public long[] search(String query, String region) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokens(query)));
+        String regionText = region == null || region.trim().isEmpty() ? null : region.toLowerCase(Locale.ROOT);
+        if (terms.isEmpty() && regionText == null) return new long[0];
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) return new long[0];
+                lists.add(list);
+            }
+            if (regionText != null) {
+                // Only the rarest trigram: its candidates are checked against the whole text anyway
+                Postings rarest = null;
+                for (String trigram : trigrams(regionText)) {
+                    Postings list = regionTrigrams.get(trigram);
+                    if (list == null) return new long[0];
+                    if (rarest == null || list.size < rarest.size) rarest = list;
+                }
+                if (rarest != null) lists.add(rarest);
+            }
+
+            int[] docs;
+            int count;
+            if (lists.isEmpty()) {
+                // A region filter shorter than a trigram: every perk is a candidate
+                count = documents;
+                docs = new int[count];
+                for (int i = 0; i < count; i++) docs[i] = i;
+            } else {
+                // Start from the rarest list, so every later step only checks its few candidates
+                lists.sort(Comparator.comparingInt(p -> p.size));
+                docs = Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+                count = docs.length;
+                for (int i = 1; i < lists.size() && count > 0; i++) {
+                    count = intersect(docs, count, lists.get(i).docs, lists.get(i).size);
+                }
+            }
+            if (regionText != null) {
+                // Sharing every trigram does not guarantee the region contains the text
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    String candidate = regions[docs[i]];
+                    if (candidate != null && candidate.contains(regionText)) docs[kept++] = docs[i];
+                }
+                count = kept;
+            }
+
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = perkIds[docs[i]];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of perks in the index.
+     *
+     * @return the number of indexed perks
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into the words the index is keyed by: lowercase letters and digits with
+     * accents removed. Everything else separates words.
+     *
+     * @param text the text to split, may be null
+     * @return the words, in order, including repeats
+     */
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        String folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the distinct three-character substrings of the text, or nothing if the text is
+     * shorter than three characters.
+     *
+     * @param text the lowercase text
+     * @return the trigrams, in order of first occurrence
+     */
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Keeps the values of {@code a[0, aSize)} that also occur in {@code b[0, bSize)}, moving them
+     * to the front of {@code a}. Both ranges must be sorted and free of duplicates.
+     * Each value of {@code a} is found in {@code b} by galloping from the previous match, so a
+     * short list is intersected with a long one in O(aSize log bSize).
+     *
+     * @return the number of values kept
+     */
+    static int intersect(int[] a, int aSize, int[] b, int bSize) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < aSize && from < bSize; i++) {
+            int doc = a[i];
+            from = gallop(b, from, bSize, doc);
+            if (from < bSize && b[from] == doc) {
+                a[kept++] = doc;
+                from++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Returns the first index in the sorted range {@code b[from, to)} whose value is at least
+     * {@code key}, or {@code to} if there is none. Probes 1, 2, 4, ... places ahead of
+     * {@code from} and then binary searches the last gap.
+     */
+    static int gallop(int[] b, int from, int to, int key) {
+        if (from >= to || b[from] >= key) return from;
+        int lo = from;
+        int step = 1;
+        int hi = from + 1;
+        while (hi < to && b[hi] < key) {
+            lo = hi;
+            step <<= 1;
+            hi = from + step;
+        }
+        if (hi > to) hi = to;
+        int found = Arrays.binarySearch(b, lo + 1, hi, key);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private void addDocument(long perkId, String region, String... texts) {
+        int doc = documents;
+        if (doc == perkIds.length) {
+            perkIds = Arrays.copyOf(perkIds, doc * 2);
+            regions = Arrays.copyOf(regions, doc * 2);
+        }
+        perkIds[doc] = perkId;
+        documents++;
+        addTokens(doc, region);
+        for (String text : texts) {
+            addTokens(doc, text);
+        }
+        if (region != null) {
+            String lower = regionValues.computeIfAbsent(region.toLowerCase(Locale.ROOT), r -> r);
+            regions[doc] = lower;
+            for (String trigram : trigrams(lower)) {
+                regionTrigrams.computeIfAbsent(trigram, t -> new Postings()).add(doc);
+            }
+        }
+    }
+
+    private void addTokens(int doc, String text) {
+        for (String token : tokens(text)) {
+            postings.computeIfAbsent(token, t -> new Postings()).add(doc);
+        }
+    }
+
+    /**
+     * The sorted document numbers of the perks containing one word.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            // A word repeated within one perk is stored once
+            if (size > 0 && docs[size - 1] == doc) return;
+            if (size == docs.length) docs = Arrays.copyOf(docs, size * 2);
+            docs[size++] = doc;
+        }
+    }
+}
@@ -4,12 +4,19 @@ import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.Product;
+import com.example.perkmanager.repositories.PerkAccountState;
 import com.example.perkmanager.repositories.PerkRepository;
+import com.example.perkmanager.repositories.PerkSpecifications;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service class for managing perk-related business logic.
@@ -22,14 +29,32 @@ import java.util.stream.Collectors;
 public class PerkService {
 
     private final PerkRepository perkRepository;
+    private final VoteBuffer voteBuffer;
+    private final PerkLeaderboardService leaderboardService;
+    private final PerkSearchIndex searchIndex;
+    private final PerkExpiryService expiryService;
+    private final DataVersion dataVersion;
 
     /**
-     * Constructs a PerkService with the specified repository.
+     * Constructs a PerkService with the specified repository, vote buffer, leaderboards, search index,
+     * expiry scheduler, and data version.
      *
-     * @param perkRepository the repository for perk data access
+     * @param perkRepository     the repository for perk data access
+     * @param voteBuffer         the buffer that batches vote writes
+     * @param leaderboardService the home-page leaderboards to keep up to date
+     * @param searchIndex        the in-memory search index, used for searches when it is enabled
+     * @param expiryService      the scheduler that marks new perks as expired when their date passes
+     * @param dataVersion        the version of the page data, bumped when perks or votes change
      */
-    public PerkService(PerkRepository perkRepository) {
+    public PerkService(PerkRepository perkRepository, VoteBuffer voteBuffer,
+                       PerkLeaderboardService leaderboardService, PerkSearchIndex searchIndex,
+                       PerkExpiryService expiryService, DataVersion dataVersion) {
         this.perkRepository = perkRepository;
+        this.voteBuffer = voteBuffer;
+        this.leaderboardService = leaderboardService;
+        this.searchIndex = searchIndex;
+        this.expiryService = expiryService;
+        this.dataVersion = dataVersion;
     }
 
     /**
@@ -77,127 +102,360 @@ public class PerkService {
         // Link perk to creator before saving
         creator.addPerk(perk);
 
-        return perkRepository.save(perk);
+        Perk saved = perkRepository.save(perk);
+        leaderboardService.update(saved);
+        searchIndex.add(saved);
+        expiryService.register(saved);
+        dataVersion.bump();
+        return saved;
+    }
+
+    /**
+     * Loads the perks with the given IDs, keeping the order of the IDs.
+     * IDs of perks that no longer exist are skipped.
+     *
+     * @param ids the perk IDs, in the order the perks should be returned
+     * @return the perks found, in the order of {@code ids}
+     */
+    @Transactional(readOnly = true)
+    public List<Perk> findAllByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Perk> byId = new HashMap<>();
+        for (Perk perk : perkRepository.findAllById(ids)) {
+            byId.put(perk.getId(), perk);
+        }
+        List<Perk> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Perk perk = byId.get(id);
+            if (perk != null) ordered.add(perk);
+        }
+        return ordered;
     }
 
     /**
      * Filters perks based on optional criteria.
-     * Supports filtering by membership type, region, expiry status, and user memberships.
-     * All filters are optional and can be combined.
+     * Supports filtering by membership type, region, expiry status, user memberships, and free text.
+     * All filters are optional and can be combined. Each filter is translated into a SQL
+     * predicate, and sorting and paging are applied by the database (LIMIT/OFFSET plus a
+     * separate count query), so only the requested page of perks is loaded.
      *
      * @param membershipType  optional filter by membership type (case-insensitive)
-     * @param region          optional filter by region (case-insensitive substring match)
-     * @param expiryOnly      if true, only returns perks with future expiry dates
-     * @param userMemberships optional set of user memberships to filter perks that match
-     * @return a filtered list of perks matching all specified criteria
+     * @param region          optional filter by region (case-insensitive substring match, served by
+     *                        the trigram index on {@code lower(region)}, or by the {@link PerkSearchIndex}
+     *                        together with the search text when it is enabled)
+     * @param expiryOnly      if true, only returns perks with an expiry date that have not expired
+     * @param membershipIds   optional IDs of the user's memberships to filter perks that match
+     * @param search          optional free text matched against the benefit, product name, company
+     *                        and membership organization (see {@link PerkSpecifications#matchesSearch});
+     *                        when the {@link PerkSearchIndex} is enabled, the index finds the matching
+     *                        perks and the database only filters, sorts and pages them
+     * @param pageable        the page, page size, and sort order to load; an unsorted page is ordered
+     *                        by search relevance (by rating with the in-memory index), or by perk ID
+     *                        when there is no search text
+     * @return one page of perks matching all specified criteria, with the total match count
      */
     @Transactional(readOnly = true)
-    public List<Perk> filterPerks(Optional<String> membershipType,
+    public Page<Perk> filterPerks(Optional<String> membershipType,
                                   Optional<String> region,
                                   Optional<Boolean> expiryOnly,
-                                  Optional<Set<Membership>> userMemberships) {
-
-        Calendar now = Calendar.getInstance();
-
-        return perkRepository.findAll().stream()
-                // Membership type filter: only if non-empty
-                .filter(p -> membershipType.isEmpty() ||
-                        membershipType.get().trim().isEmpty() ||
-                        (p.getMembership() != null &&
-                                membershipType.get().equalsIgnoreCase(p.getMembership().getType())))
-                // Region filter: only if non-empty
-                .filter(p -> region.isEmpty() ||
-                        region.get().trim().isEmpty() ||
-                        (p.getRegion() != null &&
-                                p.getRegion().toLowerCase().contains(region.get().toLowerCase())))
-                // Expiry Only filter (Exclude perks with no expiry)
-                .filter(p -> {
-                    if (!expiryOnly.orElse(false)) return true; // include all if not filtering
-                    if (p.getExpiryDate() == null) return false; // exclude perks with no expiry
-                    return p.getExpiryDate().after(now); // only include future expiry dates
-                })
-                // User memberships filter
-                .filter(p -> userMemberships.isEmpty() ||
-                        (p.getMembership() != null && userMemberships.get().contains(p.getMembership())))
-                .collect(Collectors.toList());
+                                  Optional<Set<Long>> membershipIds,
+                                  Optional<String> search,
+                                  Pageable pageable) {
+
+        String text = search.map(String::trim).orElse("");
+        boolean inMemorySearch = searchIndex.isEnabled() && !text.isEmpty();
+
+        Optional<Specification<Perk>> filter = filterSpec(membershipType, region, expiryOnly, membershipIds, text);
+        if (filter.isEmpty()) return Page.empty(pageable);
+        Specification<Perk> spec = filter.get();
+
+        if (pageable.getSort().isUnsorted()) {
+            if (!text.isEmpty() && !inMemorySearch) {
+                spec = spec.and(PerkSpecifications.orderedBySearchRank(text));
+            } else if (pageable.isPaged()) {
+                // Every in-memory match contains all the words, so relevance falls back to rating
+                Sort sort = inMemorySearch
+                        ? Sort.by(Sort.Direction.DESC, "score", "id")
+                        : Sort.by("id");
+                pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+            }
+        }
+
+        return perkRepository.findAll(spec, pageable);
     }
 
     /**
-     * Upvotes a perk for the specified account.
-     * If the account had previously downvoted the perk, the downvote is removed first.
+     * Loads the page of perks that follows a cursor, with the same filters as {@link #filterPerks}.
+     * <p>
+     * Instead of skipping the rows of the earlier pages (OFFSET), the query starts just after the
+     * last perk of the previous page, using the composite indexes on {@code (score, id)} and
+     * {@code (expiry_date, id)} (see {@code V7__perk_keyset_indexes.sql}), so a deep page costs the
+     * same as the first one. Perks whose score changes while a user pages do not shift the other
+     * perks between pages. Perks without an expiry date are read as a separate run after the dated
+     * perks (ascending) or before them (descending), matching the order of {@link #sortFor}.
+     * <p>
+     * Only the orders built by {@link #sortFor} for "rating", "expiry" and the default ID order
+     * support cursors; any other page request (such as relevance) is loaded by offset instead.
      *
-     * @param perkId  the ID of the perk to upvote
-     * @param account the account that is upvoting
-     * @throws NoSuchElementException if the perk with the given ID is not found
+     * @param membershipType optional filter by membership type (case-insensitive)
+     * @param region         optional filter by region (case-insensitive substring match)
+     * @param expiryOnly     if true, only returns perks with an expiry date that have not expired
+     * @param membershipIds  optional IDs of the user's memberships to filter perks that match
+     * @param search         optional free text, as for {@link #filterPerks}
+     * @param pageable       the page size and sort order; the page number is only used to label the page
+     * @param after          the position of the last perk of the previous page (see {@link #nextCursor})
+     * @return the page of perks after the cursor, with the total match count
      */
-    public void toggleUpvotePerk(Long perkId, Account account) {
-        Perk perk = perkRepository.findById(perkId)
-                .orElseThrow(() -> new NoSuchElementException("Perk not found"));
+    @Transactional(readOnly = true)
+    public Page<Perk> filterPerksAfter(Optional<String> membershipType,
+                                       Optional<String> region,
+                                       Optional<Boolean> expiryOnly,
+                                       Optional<Set<Long>> membershipIds,
+                                       Optional<String> search,
+                                       Pageable pageable,
+                                       PerkCursor after) {
+        Keyset keyset = Keyset.of(pageable.getSort());
+        if (keyset == null || pageable.isUnpaged()) {
+            return filterPerks(membershipType, region, expiryOnly, membershipIds, search, pageable);
+        }
 
-        if (perk.getUpvotedBy().contains(account)) {
-            perk.getUpvotedBy().remove(account);
-        } else {
-            perk.getUpvotedBy().add(account);
-            perk.getDownvotedBy().remove(account);
+        String text = search.map(String::trim).orElse("");
+        Optional<Specification<Perk>> filter = filterSpec(membershipType, region, expiryOnly, membershipIds, text);
+        if (filter.isEmpty()) return Page.empty(pageable);
+        Specification<Perk> spec = filter.get();
+
+        int size = pageable.getPageSize();
+        List<Perk> perks = new ArrayList<>(size);
+        for (Run run : keyset.runsAfter(after, pageable.getSort())) {
+            perks.addAll(perkRepository.findFirst(spec.and(run.spec()), run.sort(), size - perks.size()));
+            if (perks.size() == size) break;
         }
+        return new PageImpl<>(perks, pageable, perkRepository.count(spec));
+    }
 
-        perkRepository.save(perk);
+    /**
+     * Returns the cursor of the page after the given one, to pass to {@link #filterPerksAfter}.
+     *
+     * @param page a page loaded by {@link #filterPerks} or {@link #filterPerksAfter}
+     * @return the position of the last perk on the page, or empty if this is the last page or
+     *         the page's order does not support cursors
+     */
+    public Optional<PerkCursor> nextCursor(Page<Perk> page) {
+        Keyset keyset = Keyset.of(page.getSort());
+        if (keyset == null || !page.hasNext() || !page.hasContent()) return Optional.empty();
+        Perk last = page.getContent().get(page.getNumberOfElements() - 1);
+        Long value = null;
+        if ("score".equals(keyset.attribute())) {
+            value = (long) last.getRating();
+        } else if ("expiryDate".equals(keyset.attribute()) && last.getExpiryDate() != null) {
+            value = last.getExpiryDate().getTimeInMillis();
+        }
+        return Optional.of(new PerkCursor(value, last.getId()));
     }
 
     /**
-     * Downvotes a perk for the specified account.
-     * If the account had previously upvoted the perk, the upvote is removed first.
+     * Builds the filter predicates shared by {@link #filterPerks} and {@link #filterPerksAfter}.
      *
-     * @param perkId  the ID of the perk to downvote
-     * @param account the account that is downvoting
-     * @throws NoSuchElementException if the perk with the given ID is not found
+     * @return the specification, or empty if the in-memory search index found no matches
      */
-    public void toggleDownvotePerk(Long perkId, Account account) {
-        Perk perk = perkRepository.findById(perkId)
-                .orElseThrow(() -> new NoSuchElementException("Perk not found"));
+    private Optional<Specification<Perk>> filterSpec(Optional<String> membershipType,
+                                                     Optional<String> region,
+                                                     Optional<Boolean> expiryOnly,
+                                                     Optional<Set<Long>> membershipIds,
+                                                     String text) {
+        String regionText = region.filter(r -> !r.trim().isEmpty()).orElse(null);
+        // Without search text the index would hand every region match to the database as a list of
+        // IDs, up to the whole catalog for short filters; the trigram index serves that on its own
+        boolean inMemory = searchIndex.isEnabled() && !text.isEmpty();
+
+        Specification<Perk> spec = Specification
+                .where(PerkSpecifications.hasMembershipType(membershipType.orElse(null)));
+        if (!inMemory) {
+            spec = spec.and(PerkSpecifications.regionContains(regionText));
+        }
+
+        if (expiryOnly.orElse(false)) {
+            spec = spec.and(PerkSpecifications.expiresLater());
+        }
+        if (membershipIds.isPresent()) {
+            spec = spec.and(PerkSpecifications.membershipIdIn(membershipIds.get()));
+        }
 
-        if (perk.getDownvotedBy().contains(account)) {
-            perk.getDownvotedBy().remove(account);
-        } else {
-            perk.getDownvotedBy().add(account);
-            perk.getUpvotedBy().remove(account);
+        if (inMemory) {
+            long[] matches = searchIndex.search(text, regionText);
+            if (matches.length == 0) return Optional.empty();
+            spec = spec.and(PerkSpecifications.idIn(matches));
+        } else if (!text.isEmpty()) {
+            spec = spec.and(PerkSpecifications.matchesSearch(text));
         }
+        return Optional.of(spec);
+    }
+
+    /**
+     * Looks up the vote and save state of an account for the given perks with a single query.
+     * Votes still waiting in the {@link VoteBuffer} are applied on top of the stored state,
+     * so an account sees its own votes straight away.
+     *
+     * @param accountId the ID of the account
+     * @param perks     the perks to look up, typically one page of results
+     * @return the account's vote and save state for each perk
+     */
+    @Transactional(readOnly = true)
+    public PerkAccountStates getAccountStates(Long accountId, Collection<Perk> perks) {
+        if (perks.isEmpty()) return PerkAccountStates.none();
 
-        perkRepository.save(perk);
+        List<Long> perkIds = perks.stream().map(Perk::getId).toList();
+        Map<Long, Integer> voteStates = new HashMap<>();
+        Map<Long, Integer> saveStates = new HashMap<>();
+        for (PerkAccountState state : perkRepository.findAccountStates(accountId, perkIds)) {
+            Long perkId = state.getPerkId();
+            voteStates.put(perkId, voteBuffer.currentVoteState(perkId, accountId, state.getVoteState()));
+            saveStates.put(perkId, state.getSaveState());
+        }
+        return new PerkAccountStates(voteStates, saveStates);
     }
 
     /**
-     * Sorts a list of perks by the specified sort key and direction.
-     * Supported sort keys: "rating" (upvotes minus downvotes), "expiry" (expiry date).
-     * If an unknown sort key is provided, the list is returned unchanged.
+     * Toggles the specified account's upvote on a perk.
+     * If the account had previously downvoted the perk, the downvote is removed.
+     * The toggle is recorded in the {@link VoteBuffer} and written to the database on its next flush;
+     * votes on perks that no longer exist are dropped when the buffer is flushed.
      *
-     * @param perks     the list of perks to sort
-     * @param sortKey   optional sort key ("rating" or "expiry")
+     * @param perkId    the ID of the perk to upvote
+     * @param accountId the ID of the account that is upvoting
+     */
+    public void toggleUpvotePerk(Long perkId, Long accountId) {
+        voteBuffer.toggleUpvote(perkId, accountId);
+        dataVersion.bump();
+    }
+
+    /**
+     * Toggles the specified account's downvote on a perk.
+     * If the account had previously upvoted the perk, the upvote is removed.
+     * The toggle is recorded in the {@link VoteBuffer} and written to the database on its next flush;
+     * votes on perks that no longer exist are dropped when the buffer is flushed.
+     *
+     * @param perkId    the ID of the perk to downvote
+     * @param accountId the ID of the account that is downvoting
+     */
+    public void toggleDownvotePerk(Long perkId, Long accountId) {
+        voteBuffer.toggleDownvote(perkId, accountId);
+        dataVersion.bump();
+    }
+
+    /**
+     * Builds the page request used to load one page of perks.
+     * Supported sort keys: "rating" (upvotes minus downvotes), "expiry" (expiry date), and
+     * "relevance" (best search match first, see {@link #filterPerks}).
+     * Perks without an expiry date come last in ascending order and first in descending order.
+     * Ties are broken by perk ID in the same direction, and unknown sort keys and an empty sort
+     * key fall back to ascending perk ID, so that pages are stable.
+     *
+     * @param page      the page number (0-indexed)
+     * @param size      the page size
+     * @param sortKey   optional sort key ("rating", "expiry" or "relevance")
+     * @param direction optional sort direction ("asc" or "desc", defaults to "asc")
+     * @return the page request to pass to {@link #filterPerks}
+     */
+    public Pageable pageRequest(int page, int size, Optional<String> sortKey, Optional<String> direction) {
+        return PageRequest.of(page, size, sortFor(sortKey, direction));
+    }
+
+    /**
+     * Translates a sort key and direction into a database sort order.
+     * The perk ID tie-breaker follows the sort direction, so that the order matches the
+     * {@code (score, id)} and {@code (expiry_date, id)} indexes read forwards or backwards,
+     * and a page can start after a {@link PerkCursor}.
+     *
+     * @param sortKey   optional sort key ("rating", "expiry" or "relevance")
      * @param direction optional sort direction ("asc" or "desc", defaults to "asc")
-     * @return a sorted list of perks, or the original list if sort key is empty or unknown
+     * @return the sort order, always ending with perk ID as a tie-breaker; unsorted for
+     *         "relevance", which {@link #filterPerks} orders itself
      */
-    public List<Perk> sortPerks(List<Perk> perks, Optional<String> sortKey, Optional<String> direction) {
-        if (sortKey.isEmpty()) return perks;
+    public Sort sortFor(Optional<String> sortKey, Optional<String> direction) {
+        Sort byId = Sort.by(Sort.Direction.ASC, "id");
+        if (sortKey.isEmpty()) return byId;
 
-        boolean asc = !"desc".equalsIgnoreCase(direction.orElse("asc"));
-        Comparator<Perk> comparator = null;
+        Sort.Direction dir = "desc".equalsIgnoreCase(direction.orElse("asc"))
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
 
         switch (sortKey.get()) {
             case "rating":
-                comparator = Comparator.comparingInt(Perk::getRating); //TODO: ensure sorting by rating works correctly when ratings are implemented.
-                break;
+                return Sort.by(dir, "score", "id");
             case "expiry":
-                comparator = Comparator.comparing(
-                        Perk::getExpiryDate,
-                        Comparator.nullsLast(Comparator.comparingLong(Calendar::getTimeInMillis))
-                );
-                break;
+                return Sort.by(dir, "expiryDate", "id");
+            case "relevance":
+                return Sort.unsorted();
             default:
-                return perks; // unknown sort -> leave as-is
+                return byId; // unknown sort -> insertion order
+        }
+    }
+
+    /**
+     * A sort order that pages can be read from by keyset: one attribute and then perk ID, both
+     * in the same direction, or perk ID alone.
+     *
+     * @param attribute  the sorted attribute, or {@code null} when sorting by perk ID alone
+     * @param descending whether the order is descending
+     */
+    private record Keyset(String attribute, boolean descending) {
+
+        /** Attributes that have a composite index with the perk ID (see {@link #sortFor}). */
+        private static final Set<String> ATTRIBUTES = Set.of("score", "expiryDate");
+
+        /**
+         * Returns the keyset for a sort order, or {@code null} if the order does not support cursors.
+         */
+        static Keyset of(Sort sort) {
+            List<Sort.Order> orders = sort.toList();
+            if (orders.isEmpty() || orders.size() > 2) return null;
+            Sort.Order byId = orders.get(orders.size() - 1);
+            if (!"id".equals(byId.getProperty())) return null;
+            if (orders.size() == 1) return new Keyset(null, byId.isDescending());
+
+            Sort.Order first = orders.get(0);
+            if (!ATTRIBUTES.contains(first.getProperty()) || first.getDirection() != byId.getDirection()) return null;
+            return new Keyset(first.getProperty(), first.isDescending());
+        }
+
+        /**
+         * Returns the runs of perks that follow a cursor, in order. Perks without an expiry date
+         * form their own run ordered by perk ID: after the dated perks in ascending order and
+         * before them in descending order.
+         */
+        List<Run> runsAfter(PerkCursor after, Sort sort) {
+            if (!"expiryDate".equals(attribute)) {
+                return List.of(new Run(PerkSpecifications.after(attribute, keyValue(after), after.id(), descending), sort));
+            }
+            Sort byId = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, "id");
+            Run dated = new Run(PerkSpecifications.hasNull(attribute, false), sort);
+            Run undated = new Run(PerkSpecifications.hasNull(attribute, true), byId);
+            if (after.value() == null) {
+                Run undatedAfter = new Run(undated.spec()
+                        .and(PerkSpecifications.after(null, null, after.id(), descending)), byId);
+                return descending ? List.of(undatedAfter, dated) : List.of(undatedAfter);
+            }
+            Run datedAfter = new Run(dated.spec()
+                    .and(PerkSpecifications.after(attribute, keyValue(after), after.id(), descending)), sort);
+            return descending ? List.of(datedAfter) : List.of(datedAfter, undated);
         }
 
-        if (!asc) comparator = comparator.reversed();
-        return perks.stream().sorted(comparator).collect(Collectors.toList());
+        private Object keyValue(PerkCursor after) {
+            if (attribute == null || after.value() == null) return null;
+            if ("score".equals(attribute)) return after.value().intValue();
+            Calendar expiry = Calendar.getInstance();
+            expiry.setTimeInMillis(after.value());
+            return expiry;
+        }
     }
 
+    /**
+     * One run of perks read by {@link #filterPerksAfter}.
+     *
+     * @param spec the predicates that select the run and start it after the cursor
+     * @param sort the order of the run
+     */
+    private record Run(Specification<Perk> spec, Sort sort) {}
+
 }
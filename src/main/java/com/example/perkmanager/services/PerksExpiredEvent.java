@@ -0,0 +1,11 @@
+package com.example.perkmanager.services;
+
+import java.util.List;
+
+/**
+ * Published by {@link PerkExpiryService} after perks have been marked as expired in the database,
+ * so that leaderboards and caches holding them can drop them.
+ *
+ * @param perkIds the IDs of the perks that expired
+ */
+public record PerksExpiredEvent(List<Long> perkIds) {}
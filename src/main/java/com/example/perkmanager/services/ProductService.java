@@ -19,14 +19,17 @@ import java.util.Optional;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final DataVersion dataVersion;
 
     /**
      * Constructs a ProductService with the specified repository.
      *
      * @param productRepository the repository for product data access
+     * @param dataVersion       the version of the page data, bumped when products change
      */
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, DataVersion dataVersion) {
         this.productRepository = productRepository;
+        this.dataVersion = dataVersion;
     }
 
     /**
@@ -60,6 +63,8 @@ public class ProductService {
      */
     public Product createProduct(String name, String company, String description) {
         Product product = new Product(name, description, company);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        dataVersion.bump();
+        return saved;
     }
 }
@@ -0,0 +1,460 @@
+package com.example.perkmanager.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind journal for perk votes.
+ * <p>
+ * Upvote and downvote toggles are recorded in memory and acknowledged immediately.
+ * Repeated toggles by the same account on the same perk are coalesced into a single
+ * {@link VoteTransition}, and a scheduled flush applies all pending transitions with
+ * batched JDBC writes to the vote join tables and the stored vote counters on the perks table.
+ * <p>
+ * A batch that cannot be written is retried with exponential backoff, capped at
+ * {@value #MAX_RETRY_BACKOFF_MS} ms, for as long as the database keeps failing. Only an error
+ * that retrying cannot fix, such as a constraint violation, sets toggles aside: the batch is
+ * then written one toggle at a time, and a toggle still rejected after {@value #MAX_ATTEMPTS}
+ * attempts is appended to a local journal file instead of being retried. No toggle is dropped.
+ * <p>
+ * On shutdown the journal is flushed; anything that cannot be written is saved to the journal
+ * file too, which is replayed on the next startup.
+ *
+ */
+@Service
+public class VoteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteBuffer.class);
+
+    /** Maximum number of (perk, account) pairs written per batch. */
+    static final int BATCH_SIZE = 500;
+
+    /** Number of writes rejected with a permanent error after which a vote toggle is moved to the journal file. */
+    static final int MAX_ATTEMPTS = 3;
+
+    /** Wait before the first retry after a failed write; doubled after each further failure. */
+    static final long RETRY_BACKOFF_MS = 200;
+
+    /** Longest wait between retries. */
+    static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final PerkLeaderboardService leaderboardService;
+    private final DataVersion dataVersion;
+    private final Path journalFile;
+
+    private final ConcurrentHashMap<VoteKey, VoteTransition> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<VoteKey, VoteTransition> inFlight = new ConcurrentHashMap<>();
+    private final Map<VoteKey, Integer> failedAttempts = new HashMap<>();
+
+    /** Failed writes since the last successful one, and when writing may be tried again. */
+    private int consecutiveFailures;
+    private long retryNotBefore;
+
+    /**
+     * Constructs a VoteBuffer.
+     *
+     * @param jdbc                the JDBC template used for batched vote writes
+     * @param transactionTemplate the template used to run each flush batch in a transaction
+     * @param leaderboardService  the home-page leaderboards, told about score changes after each flush
+     * @param dataVersion         the version of the page data, bumped when a flush changes scores
+     * @param journalFile         the file used to persist unflushed votes across restarts
+     */
+    public VoteBuffer(NamedParameterJdbcTemplate jdbc,
+                      TransactionTemplate transactionTemplate,
+                      PerkLeaderboardService leaderboardService,
+                      DataVersion dataVersion,
+                      @Value("${perkmanager.votes.journal-file:vote-journal.log}") String journalFile) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.leaderboardService = leaderboardService;
+        this.dataVersion = dataVersion;
+        this.journalFile = Paths.get(journalFile);
+    }
+
+    /**
+     * Records an upvote toggle: upvotes the perk, or removes the account's upvote if it already upvoted.
+     *
+     * @param perkId    the ID of the perk
+     * @param accountId the ID of the voting account
+     */
+    public void toggleUpvote(long perkId, long accountId) {
+        record(new VoteKey(perkId, accountId), VoteTransition.TOGGLE_UPVOTE);
+    }
+
+    /**
+     * Records a downvote toggle: downvotes the perk, or removes the account's downvote if it already downvoted.
+     *
+     * @param perkId    the ID of the perk
+     * @param accountId the ID of the voting account
+     */
+    public void toggleDownvote(long perkId, long accountId) {
+        record(new VoteKey(perkId, accountId), VoteTransition.TOGGLE_DOWNVOTE);
+    }
+
+    /**
+     * Applies any vote toggles that have not been written yet to a vote state read from the database.
+     *
+     * @param perkId      the ID of the perk
+     * @param accountId   the ID of the account
+     * @param storedState the stored vote state (1 = upvoted, -1 = downvoted, 0 = no vote)
+     * @return the vote state including unflushed toggles
+     */
+    public int currentVoteState(long perkId, long accountId, int storedState) {
+        VoteKey key = new VoteKey(perkId, accountId);
+        int state = storedState;
+        VoteTransition flushing = inFlight.get(key);
+        if (flushing != null) state = flushing.apply(state);
+        VoteTransition waiting = pending.get(key);
+        if (waiting != null) state = waiting.apply(state);
+        return state;
+    }
+
+    /**
+     * Returns the number of (perk, account) pairs waiting to be written.
+     *
+     * @return the number of pending votes
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void record(VoteKey key, VoteTransition transition) {
+        pending.merge(key, transition, VoteTransition::then);
+    }
+
+    /**
+     * Writes all pending vote toggles to the database.
+     * Runs on a short fixed delay; batches that fail are put back in the journal and retried
+     * once the backoff after the failure has passed.
+     */
+    @Scheduled(fixedDelayString = "${perkmanager.votes.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (consecutiveFailures > 0 && System.nanoTime() - retryNotBefore < 0) return;
+        writePending();
+    }
+
+    /**
+     * Writes all pending vote toggles to the database now, whatever the backoff.
+     */
+    synchronized void writePending() {
+        if (pending.isEmpty()) return;
+
+        List<VoteKey> batch = new ArrayList<>(BATCH_SIZE);
+        for (VoteKey key : pending.keySet()) {
+            VoteTransition transition = pending.remove(key);
+            if (transition == null) continue;
+            inFlight.put(key, transition);
+            batch.add(key);
+            if (batch.size() == BATCH_SIZE) {
+                writeBatch(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) writeBatch(batch);
+    }
+
+    private void writeBatch(List<VoteKey> batch) {
+        try {
+            Map<Long, Integer> scoreDeltas = transactionTemplate.execute(status -> applyBatch(batch));
+            for (VoteKey key : batch) {
+                inFlight.remove(key);
+                failedAttempts.remove(key);
+            }
+            consecutiveFailures = 0;
+            if (scoreDeltas != null && !scoreDeltas.isEmpty()) {
+                scoreDeltas.forEach(leaderboardService::adjustScore);
+                dataVersion.bump();
+            }
+        } catch (RuntimeException e) {
+            boolean permanent = isPermanent(e);
+            if (permanent && batch.size() > 1) {
+                // Write the toggles one at a time, so only the ones the database rejects are set aside
+                for (VoteKey key : batch) {
+                    writeBatch(List.of(key));
+                }
+                return;
+            }
+
+            consecutiveFailures++;
+            long backoff = Math.min(RETRY_BACKOFF_MS << Math.min(consecutiveFailures - 1, 20), MAX_RETRY_BACKOFF_MS);
+            retryNotBefore = System.nanoTime() + backoff * 1_000_000L;
+
+            Map<VoteKey, VoteTransition> setAside = new LinkedHashMap<>();
+            for (VoteKey key : batch) {
+                VoteTransition transition = inFlight.remove(key);
+                if (transition == null) continue;
+                if (permanent && failedAttempts.merge(key, 1, Integer::sum) >= MAX_ATTEMPTS) {
+                    failedAttempts.remove(key);
+                    setAside.put(key, transition);
+                    continue;
+                }
+                // Older toggles go back in front of anything recorded since the batch was taken
+                pending.merge(key, transition, (newer, older) -> older.then(newer));
+            }
+            if (!setAside.isEmpty()) {
+                log.error("Database rejected {} buffered votes {} times; moving them to {}",
+                        setAside.size(), MAX_ATTEMPTS, journalFile, e);
+                if (!appendToJournal(setAside)) {
+                    // Better retried forever than lost
+                    setAside.forEach((key, transition) ->
+                            pending.merge(key, transition, (newer, older) -> older.then(newer)));
+                }
+            } else {
+                log.error("Failed to write {} buffered votes, will retry in {} ms", batch.size(), backoff, e);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a failed write would fail the same way however often it was retried:
+     * the database rejected the data or the statement, rather than being unreachable, slow or busy.
+     */
+    private static boolean isPermanent(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException
+                || e instanceof InvalidDataAccessResourceUsageException
+                || e instanceof InvalidDataAccessApiUsageException;
+    }
+
+    /**
+     * Writes the net effect of a batch of toggles and returns the score change of each perk.
+     * The vote counters are changed by the rows actually inserted and deleted, so a vote on a
+     * perk or account deleted in the meantime changes neither the vote tables nor the counters.
+     */
+    private Map<Long, Integer> applyBatch(List<VoteKey> batch) {
+        Map<VoteKey, Integer> stored = loadVoteStates(batch);
+
+        List<MapSqlParameterSource> deleteUp = new ArrayList<>();
+        List<MapSqlParameterSource> deleteDown = new ArrayList<>();
+        List<MapSqlParameterSource> insertUp = new ArrayList<>();
+        List<MapSqlParameterSource> insertDown = new ArrayList<>();
+
+        for (VoteKey key : batch) {
+            int before = stored.getOrDefault(key, 0);
+            int after = inFlight.get(key).apply(before);
+            if (before == after) continue;
+
+            MapSqlParameterSource row = new MapSqlParameterSource()
+                    .addValue("perkId", key.perkId())
+                    .addValue("accountId", key.accountId());
+            if (before == 1) deleteUp.add(row);
+            if (before == -1) deleteDown.add(row);
+            if (after == 1) insertUp.add(row);
+            if (after == -1) insertDown.add(row);
+        }
+
+        // Up and down vote count changes of each perk, from the rows each statement changed
+        Map<Long, int[]> counterDeltas = new HashMap<>();
+        countChanges(batchUpdate("DELETE FROM perk_upvotes WHERE perk_id = :perkId AND account_id = :accountId",
+                deleteUp), deleteUp, counterDeltas, 0, -1);
+        countChanges(batchUpdate("DELETE FROM perk_downvotes WHERE perk_id = :perkId AND account_id = :accountId",
+                deleteDown), deleteDown, counterDeltas, 1, -1);
+        // Votes on perks or accounts deleted in the meantime are dropped
+        countChanges(batchUpdate("INSERT INTO perk_upvotes (perk_id, account_id) SELECT :perkId, :accountId " +
+                "WHERE EXISTS (SELECT 1 FROM perks WHERE id = :perkId) " +
+                "AND EXISTS (SELECT 1 FROM accounts WHERE id = :accountId)", insertUp),
+                insertUp, counterDeltas, 0, 1);
+        countChanges(batchUpdate("INSERT INTO perk_downvotes (perk_id, account_id) SELECT :perkId, :accountId " +
+                "WHERE EXISTS (SELECT 1 FROM perks WHERE id = :perkId) " +
+                "AND EXISTS (SELECT 1 FROM accounts WHERE id = :accountId)", insertDown),
+                insertDown, counterDeltas, 1, 1);
+
+        List<MapSqlParameterSource> counters = new ArrayList<>();
+        Map<Long, Integer> scoreDeltas = new HashMap<>();
+        counterDeltas.forEach((perkId, delta) -> {
+            if (delta[0] == 0 && delta[1] == 0) return;
+            counters.add(new MapSqlParameterSource()
+                    .addValue("perkId", perkId)
+                    .addValue("up", delta[0])
+                    .addValue("down", delta[1])
+                    .addValue("score", delta[0] - delta[1]));
+            scoreDeltas.put(perkId, delta[0] - delta[1]);
+        });
+        batchUpdate("UPDATE perks SET upvote_count = upvote_count + :up, downvote_count = downvote_count + :down, " +
+                "score = score + :score WHERE id = :perkId", counters);
+        return scoreDeltas;
+    }
+
+    /**
+     * Loads the stored vote state of every (perk, account) pair in the batch with a single query.
+     */
+    private Map<VoteKey, Integer> loadVoteStates(List<VoteKey> batch) {
+        Set<Long> perkIds = new HashSet<>();
+        Set<Long> accountIds = new HashSet<>();
+        for (VoteKey key : batch) {
+            perkIds.add(key.perkId());
+            accountIds.add(key.accountId());
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("perkIds", perkIds)
+                .addValue("accountIds", accountIds);
+
+        Map<VoteKey, Integer> states = new HashMap<>();
+        jdbc.query("SELECT perk_id, account_id, 1 AS vote FROM perk_upvotes " +
+                        "WHERE perk_id IN (:perkIds) AND account_id IN (:accountIds) " +
+                        "UNION ALL " +
+                        "SELECT perk_id, account_id, -1 AS vote FROM perk_downvotes " +
+                        "WHERE perk_id IN (:perkIds) AND account_id IN (:accountIds)",
+                params,
+                rs -> {
+                    states.put(new VoteKey(rs.getLong("perk_id"), rs.getLong("account_id")), rs.getInt("vote"));
+                });
+        return states;
+    }
+
+    private int[] batchUpdate(String sql, List<MapSqlParameterSource> rows) {
+        if (rows.isEmpty()) return new int[0];
+        return jdbc.batchUpdate(sql, rows.toArray(new MapSqlParameterSource[0]));
+    }
+
+    /**
+     * Adds {@code change} to a vote counter of each perk whose row the statement changed.
+     *
+     * @param updateCounts  the update count of each row, as returned by the batch
+     * @param rows          the rows of the batch
+     * @param counterDeltas the up ({@code 0}) and down ({@code 1}) count changes of each perk
+     * @param counter       the counter the statement changes
+     * @param change        +1 for an inserted vote, -1 for a deleted one
+     */
+    private static void countChanges(int[] updateCounts, List<MapSqlParameterSource> rows,
+                                     Map<Long, int[]> counterDeltas, int counter, int change) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (i >= updateCounts.length || updateCounts[i] == 0) continue;
+            long perkId = (Long) rows.get(i).getValue("perkId");
+            counterDeltas.computeIfAbsent(perkId, id -> new int[2])[counter] += change;
+        }
+    }
+
+    /**
+     * Replays votes saved to the journal file by a previous shutdown.
+     */
+    @PostConstruct
+    void replayJournal() {
+        if (!Files.exists(journalFile)) return;
+        try {
+            List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(",");
+                VoteKey key = new VoteKey(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                record(key, VoteTransition.parse(parts[2]));
+            }
+            Files.delete(journalFile);
+            log.info("Replayed {} buffered votes from {}", lines.size(), journalFile);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to replay vote journal {}", journalFile, e);
+        }
+    }
+
+    /**
+     * Flushes pending votes on shutdown, saving anything that could not be written to the journal file.
+     */
+    @PreDestroy
+    synchronized void shutdown() {
+        writePending();
+        if (pending.isEmpty()) return;
+
+        if (appendToJournal(pending)) {
+            log.warn("Saved {} unflushed votes to {}", pending.size(), journalFile);
+        }
+    }
+
+    /**
+     * Appends vote toggles to the journal file, after any toggles already saved there.
+     *
+     * @param toggles the toggles to save
+     * @return whether the toggles were saved
+     */
+    private boolean appendToJournal(Map<VoteKey, VoteTransition> toggles) {
+        try (BufferedWriter writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Map.Entry<VoteKey, VoteTransition> entry : toggles.entrySet()) {
+                writer.write(entry.getKey().perkId() + "," + entry.getKey().accountId() + "," + entry.getValue());
+                writer.newLine();
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to save {} votes to {}", toggles.size(), journalFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Identifies one account's vote on one perk.
+     *
+     * @param perkId    the ID of the perk
+     * @param accountId the ID of the account
+     */
+    record VoteKey(long perkId, long accountId) {}
+
+    /**
+     * The net effect of one or more vote toggles, as a mapping from the vote state before the
+     * toggles to the vote state after them. Vote states are 1 (upvoted), -1 (downvoted) and 0 (no vote).
+     *
+     * @param fromDownvoted the state after the toggles if the account had downvoted
+     * @param fromNone      the state after the toggles if the account had not voted
+     * @param fromUpvoted   the state after the toggles if the account had upvoted
+     */
+    record VoteTransition(int fromDownvoted, int fromNone, int fromUpvoted) {
+
+        /** Upvote toggle: upvoted becomes no vote, anything else becomes upvoted. */
+        static final VoteTransition TOGGLE_UPVOTE = new VoteTransition(1, 1, 0);
+
+        /** Downvote toggle: downvoted becomes no vote, anything else becomes downvoted. */
+        static final VoteTransition TOGGLE_DOWNVOTE = new VoteTransition(0, -1, -1);
+
+        /**
+         * Returns the vote state after applying this transition.
+         *
+         * @param state the vote state before
+         * @return the vote state after
+         */
+        int apply(int state) {
+            if (state > 0) return fromUpvoted;
+            if (state < 0) return fromDownvoted;
+            return fromNone;
+        }
+
+        /**
+         * Returns the transition equivalent to applying this one and then {@code next}.
+         *
+         * @param next the transition applied afterwards
+         * @return the combined transition
+         */
+        VoteTransition then(VoteTransition next) {
+            return new VoteTransition(next.apply(fromDownvoted), next.apply(fromNone), next.apply(fromUpvoted));
+        }
+
+        static VoteTransition parse(String text) {
+            String[] parts = text.split(":");
+            return new VoteTransition(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        }
+
+        @Override
+        public String toString() {
+            return fromDownvoted + ":" + fromNone + ":" + fromUpvoted;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.perkmanager.utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of {@code long} values stored in an open-addressing hash table.
+ * <p>
+ * Values are kept unboxed in a single {@code long[]} with linear probing, so {@link #contains}
+ * is O(1) and allocation-free. Used for the membership and saved-perk IDs of the logged-in
+ * account, which are checked once per row on every page.
+ * Only additions are supported. Not thread-safe while it is being filled;
+ * safe to read from any thread once it has been published.
+ *
+ */
+public final class LongHashSet {
+
+    /** Marks an empty slot. Zero itself is tracked by {@link #containsZero}. */
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * Creates an empty set.
+     */
+    public LongHashSet() {
+        this(8);
+    }
+
+    /**
+     * Creates an empty set sized to hold the given number of values without resizing.
+     *
+     * @param expectedSize the number of values expected
+     */
+    public LongHashSet(int expectedSize) {
+        table = new long[capacityFor(expectedSize)];
+    }
+
+    /**
+     * Creates a set of the given values.
+     *
+     * @param values the values
+     * @return a new set containing the values
+     */
+    public static LongHashSet of(long... values) {
+        LongHashSet set = new LongHashSet(values.length);
+        for (long value : values) set.add(value);
+        return set;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value the value to add
+     * @return true if the value was not already in the set
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > table.length) resize();
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == EMPTY) {
+                table[i] = value;
+                size++;
+                return true;
+            }
+            if (current == value) return false;
+        }
+    }
+
+    /**
+     * Checks whether a value is in the set.
+     *
+     * @param value the value to look for
+     * @return true if the set contains the value
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) return containsZero;
+        long[] t = table;
+        int mask = t.length - 1;
+        for (int i = slot(value, mask); ; i = (i + 1) & mask) {
+            long current = t[i];
+            if (current == value) return true;
+            if (current == EMPTY) return false;
+        }
+    }
+
+    /**
+     * @return the number of values in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the set has no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the values in the set, in no particular order.
+     *
+     * @return a new array of the values
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int n = 0;
+        if (containsZero) values[n++] = EMPTY;
+        for (long value : table) {
+            if (value != EMPTY) values[n++] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the values as boxed {@code Long}s, for APIs such as JPA {@code IN} predicates
+     * that need a collection.
+     *
+     * @return a new set of the values
+     */
+    public Set<Long> toSet() {
+        Set<Long> set = new HashSet<>(size * 2);
+        for (long value : toArray()) set.add(value);
+        return set;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongHashSet other) || other.size != size) return false;
+        for (long value : toArray()) {
+            if (!other.contains(value)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (long value : toArray()) hash += Long.hashCode(value);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        long[] values = toArray();
+        Arrays.sort(values);
+        return Arrays.toString(values);
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long value : old) {
+            if (value == EMPTY) continue;
+            int i = slot(value, mask);
+            while (table[i] != EMPTY) i = (i + 1) & mask;
+            table[i] = value;
+        }
+    }
+
+    /**
+     * Spreads the bits of sequential IDs across the table (Fibonacci hashing).
+     */
+    private static int slot(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Returns the smallest power of two that keeps the table at most half full.
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2L) capacity <<= 1;
+        return capacity;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.perkmanager.views;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rendered HTML of template fragments, kept so that unchanged fragments are written out again
+ * without being rendered (see {@link FragmentCacheDialect}).
+ * <p>
+ * The CSRF token is the one per-request value allowed in a cached fragment: Spring Security
+ * masks the token differently for every request, so it is cut out of the HTML when a fragment
+ * is stored and the current request's token is put back each time the fragment is used.
+ * Everything else that varies must be part of the key.
+ * <p>
+ * The cache is bounded, dropping the least recently used fragments first. It follows
+ * {@code spring.thymeleaf.cache}, so it is off while templates are edited with DevTools.
+ *
+ */
+@Component
+public class FragmentCache {
+
+    private final boolean enabled;
+    private final Map<String, CachedFragment> fragments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructs a FragmentCache.
+     *
+     * @param enabled whether rendered fragments are kept; off when templates are not cached either
+     * @param maxSize the most fragments kept; the least recently used are dropped first
+     */
+    public FragmentCache(@Value("${spring.thymeleaf.cache:true}") boolean enabled,
+                         @Value("${perkmanager.views.fragment-cache.max-size:5000}") int maxSize) {
+        this.enabled = enabled;
+        this.fragments = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedFragment> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the HTML stored for a key, with the given CSRF token put back in.
+     *
+     * @param key       the fragment and the values it was rendered for
+     * @param csrfToken the current request's CSRF token, or null if it has none
+     * @return the HTML, or null if the fragment has to be rendered
+     */
+    public String get(String key, String csrfToken) {
+        if (!enabled) return null;
+        CachedFragment fragment;
+        synchronized (fragments) {
+            fragment = fragments.get(key);
+        }
+        if (fragment == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return fragment.html(csrfToken);
+    }
+
+    /**
+     * Stores the HTML rendered for a key.
+     *
+     * @param key       the fragment and the values it was rendered for
+     * @param html      the rendered HTML
+     * @param csrfToken the CSRF token of the request it was rendered for, or null if it had none
+     */
+    public void put(String key, String html, String csrfToken) {
+        if (!enabled) return;
+        CachedFragment fragment = CachedFragment.of(html, csrfToken);
+        synchronized (fragments) {
+            fragments.put(key, fragment);
+        }
+    }
+
+    /**
+     * Returns hit and miss counts and the number of fragments kept.
+     *
+     * @return the cache statistics
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (fragments) {
+            size = fragments.size();
+        }
+        return new Stats(hits.get(), misses.get(), size);
+    }
+
+    /**
+     * Rendered HTML split at each occurrence of the CSRF token it was rendered with.
+     */
+    private record CachedFragment(String[] parts, int length) {
+
+        static CachedFragment of(String html, String csrfToken) {
+            if (csrfToken == null || csrfToken.isEmpty()) {
+                return new CachedFragment(new String[]{html}, html.length());
+            }
+            List<String> parts = new ArrayList<>();
+            int start = 0;
+            int found;
+            while ((found = html.indexOf(csrfToken, start)) >= 0) {
+                parts.add(html.substring(start, found));
+                start = found + csrfToken.length();
+            }
+            parts.add(html.substring(start));
+            return new CachedFragment(parts.toArray(String[]::new), html.length() - (parts.size() - 1) * csrfToken.length());
+        }
+
+        String html(String csrfToken) {
+            if (parts.length == 1) return parts[0];
+            String token = csrfToken != null ? csrfToken : "";
+            StringBuilder html = new StringBuilder(length + (parts.length - 1) * token.length());
+            html.append(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                html.append(token).append(parts[i]);
+            }
+            return html.toString();
+        }
+    }
+
+    /**
+     * Hit and miss counts for the fragment cache.
+     *
+     * @param hits   fragments written from the cache
+     * @param misses fragments that had to be rendered
+     * @param size   the number of fragments kept
+     */
+    public record Stats(long hits, long misses, int size) {}
+}
@@ -0,0 +1,173 @@
+package com.example.perkmanager.views;
+
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.context.IEngineContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.processor.element.AbstractAttributeTagProcessor;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.standard.expression.Fragment;
+import org.thymeleaf.standard.expression.FragmentSignature;
+import org.thymeleaf.standard.expression.FragmentSignatureUtils;
+import org.thymeleaf.standard.expression.IStandardExpressionParser;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.standard.processor.StandardXmlNsTagProcessor;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.EscapedAttributeUtils;
+
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thymeleaf dialect that splices fragments in from the {@link FragmentCache} instead of rendering them.
+ * <p>
+ * {@code cache:replace} is used like {@code th:replace}, with a fragment expression:
+ * <pre>{@code <div cache:replace="~{fragments/navbar :: navbar}"></div>}</pre>
+ * The fragment declares what its HTML depends on with {@code cache:key} next to {@code th:fragment};
+ * the key is evaluated with the fragment's parameters, and a fragment is only rendered when no HTML
+ * is stored for its key. A fragment without {@code cache:key} is the same for every request.
+ * <p>
+ * Apart from the CSRF token, which the cache puts back for each request, any value that changes
+ * a fragment's HTML must be part of its key.
+ *
+ */
+@Component
+public class FragmentCacheDialect extends AbstractProcessorDialect {
+
+    /** Prefix of the dialect's attributes. */
+    public static final String PREFIX = "cache";
+
+    /** Runs where {@code th:replace} runs. */
+    private static final int REPLACE_PRECEDENCE = 100;
+
+    private final FragmentCache fragmentCache;
+
+    /**
+     * Constructs a FragmentCacheDialect.
+     *
+     * @param fragmentCache where rendered fragments are kept
+     */
+    public FragmentCacheDialect(FragmentCache fragmentCache) {
+        super("Fragment cache", PREFIX, StandardDialect.PROCESSOR_PRECEDENCE);
+        this.fragmentCache = fragmentCache;
+    }
+
+    @Override
+    public Set<IProcessor> getProcessors(String dialectPrefix) {
+        return Set.of(
+                new ReplaceProcessor(dialectPrefix, fragmentCache),
+                new KeyProcessor(dialectPrefix),
+                new StandardXmlNsTagProcessor(TemplateMode.HTML, dialectPrefix));
+    }
+
+    /**
+     * Replaces its element with a fragment, written from the cache when its key has been rendered before.
+     */
+    private static final class ReplaceProcessor extends AbstractAttributeTagProcessor {
+
+        private final FragmentCache fragmentCache;
+
+        ReplaceProcessor(String dialectPrefix, FragmentCache fragmentCache) {
+            super(TemplateMode.HTML, dialectPrefix, null, false, "replace", true, REPLACE_PRECEDENCE, true);
+            this.fragmentCache = fragmentCache;
+        }
+
+        @Override
+        protected void doProcess(ITemplateContext context, IProcessableElementTag tag, AttributeName attributeName,
+                                 String attributeValue, IElementTagStructureHandler structureHandler) {
+            IEngineConfiguration configuration = context.getConfiguration();
+            IStandardExpressionParser parser = StandardExpressions.getExpressionParser(configuration);
+            if (!(parser.parseExpression(context, attributeValue).execute(context) instanceof Fragment fragment)
+                    || fragment.getTemplateModel() == null) {
+                throw new TemplateProcessingException(
+                        "cache:replace needs the expression of a fragment, but got \"" + attributeValue + "\"");
+            }
+            TemplateModel model = fragment.getTemplateModel();
+            IProcessableElementTag holder = fragmentHolder(model);
+
+            // Parameters are set on this element's level, which ends with it, as th:replace does
+            Map<String, Object> parameters = parameters(configuration, fragment, holder);
+            if (parameters != null && !parameters.isEmpty()) {
+                ((IEngineContext) context).setVariables(parameters);
+            }
+
+            String key = key(model.getTemplateData(), context, parser, holder);
+            String csrfToken = context.getVariable(CsrfToken.class.getName()) instanceof CsrfToken token
+                    ? token.getToken() : null;
+
+            String html = fragmentCache.get(key, csrfToken);
+            if (html == null) {
+                StringWriter writer = new StringWriter(1024);
+                configuration.getTemplateManager().process(model, context, writer);
+                html = writer.toString();
+                fragmentCache.put(key, html, csrfToken);
+            }
+            // Already rendered, so inserted as text and not processed again
+            structureHandler.replaceWith(html, false);
+        }
+
+        /**
+         * Returns the element the fragment is made of, if it is a single element.
+         */
+        private static IProcessableElementTag fragmentHolder(TemplateModel model) {
+            ITemplateEvent first = model.size() > 2 ? model.get(1) : null;
+            return first instanceof IProcessableElementTag tag ? tag : null;
+        }
+
+        /**
+         * Names the fragment's parameters after its th:fragment signature, e.g. {@code head(title)}.
+         */
+        private static Map<String, Object> parameters(IEngineConfiguration configuration, Fragment fragment,
+                                                      IProcessableElementTag holder) {
+            Map<String, Object> parameters = fragment.getParameters();
+            if (holder == null || !holder.hasAttribute(StandardDialect.PREFIX, "fragment")) {
+                return parameters;
+            }
+            String signature = EscapedAttributeUtils.unescapeAttribute(TemplateMode.HTML,
+                    holder.getAttributeValue(StandardDialect.PREFIX, "fragment"));
+            FragmentSignature fragmentSignature = FragmentSignatureUtils.parseFragmentSignature(configuration, signature);
+            return fragmentSignature == null ? parameters
+                    : FragmentSignatureUtils.processParameters(fragmentSignature, parameters, fragment.hasSyntheticParameters());
+        }
+
+        /**
+         * Builds the cache key from the fragment's template and selector and its evaluated cache:key.
+         */
+        private String key(TemplateData templateData, ITemplateContext context, IStandardExpressionParser parser,
+                           IProcessableElementTag holder) {
+            String fragmentName = templateData.getTemplate() + " :: " + templateData.getTemplateSelectors();
+            if (holder == null || !holder.hasAttribute(getDialectPrefix(), "key")) {
+                return fragmentName;
+            }
+            String keyExpression = EscapedAttributeUtils.unescapeAttribute(TemplateMode.HTML,
+                    holder.getAttributeValue(getDialectPrefix(), "key"));
+            return fragmentName + " @ " + parser.parseExpression(context, keyExpression).execute(context);
+        }
+    }
+
+    /**
+     * Removes cache:key from the fragment's HTML; the key itself is read by {@link ReplaceProcessor}.
+     */
+    private static final class KeyProcessor extends AbstractAttributeTagProcessor {
+
+        KeyProcessor(String dialectPrefix) {
+            super(TemplateMode.HTML, dialectPrefix, null, false, "key", true, REPLACE_PRECEDENCE, true);
+        }
+
+        @Override
+        protected void doProcess(ITemplateContext context, IProcessableElementTag tag, AttributeName attributeName,
+                                 String attributeValue, IElementTagStructureHandler structureHandler) {
+        }
+    }
+}
@@ -40,3 +40,9 @@ INSERT INTO perk_downvotes (perk_id, account_id) VALUES
                                                      (4,3),
                                                      (6,1)
 ON CONFLICT DO NOTHING;
+
+-- Recount stored vote counters (see V3__perk_vote_counters.sql)
+UPDATE perks p
+SET upvote_count   = (SELECT COUNT(*) FROM perk_upvotes u WHERE u.perk_id = p.id),
+    downvote_count = (SELECT COUNT(*) FROM perk_downvotes d WHERE d.perk_id = p.id);
+UPDATE perks SET score = upvote_count - downvote_count;
@@ -6,3 +6,7 @@ DROP TABLE IF EXISTS perks;
 DROP TABLE IF EXISTS products;
 DROP TABLE IF EXISTS memberships;
 DROP TABLE IF EXISTS accounts;
+DROP FUNCTION IF EXISTS perks_search_vector_refresh();
+DROP FUNCTION IF EXISTS products_search_vector_refresh();
+DROP FUNCTION IF EXISTS memberships_search_vector_refresh();
+DROP FUNCTION IF EXISTS perk_search_vector(TEXT, BIGINT, BIGINT);
@@ -0,0 +1,14 @@
+-- V3__perk_vote_counters.sql
+-- Stored vote counters on perks, so ratings can be read and sorted without loading the vote join tables.
+
+ALTER TABLE perks ADD COLUMN IF NOT EXISTS upvote_count INT NOT NULL DEFAULT 0;
+ALTER TABLE perks ADD COLUMN IF NOT EXISTS downvote_count INT NOT NULL DEFAULT 0;
+ALTER TABLE perks ADD COLUMN IF NOT EXISTS score INT NOT NULL DEFAULT 0;
+
+-- Backfill counters for existing rows
+UPDATE perks p
+SET upvote_count   = (SELECT COUNT(*) FROM perk_upvotes u WHERE u.perk_id = p.id),
+    downvote_count = (SELECT COUNT(*) FROM perk_downvotes d WHERE d.perk_id = p.id);
+UPDATE perks SET score = upvote_count - downvote_count;
+
+CREATE INDEX IF NOT EXISTS idx_perks_score ON perks (score);
@@ -0,0 +1,72 @@
+-- V4__perk_search.sql
+-- Full-text search over perks: a stored tsvector per perk covering the benefit, product name,
+-- company and membership organization, kept current by triggers and indexed with GIN.
+-- Names are weighted A and the benefit B, so a match on the brand ranks above a passing mention.
+
+ALTER TABLE perks ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+-- Builds the search document of one perk from its own benefit and its product and membership
+CREATE OR REPLACE FUNCTION perk_search_vector(p_benefit TEXT, p_product_id BIGINT, p_membership_id BIGINT)
+    RETURNS tsvector
+    LANGUAGE sql
+    STABLE
+AS $$
+SELECT setweight(to_tsvector('english', coalesce((SELECT pr.name FROM products pr WHERE pr.id = p_product_id), '')), 'A')
+           || setweight(to_tsvector('english', coalesce((SELECT pr.company FROM products pr WHERE pr.id = p_product_id), '')), 'A')
+           || setweight(to_tsvector('english', coalesce((SELECT m.org_name FROM memberships m WHERE m.id = p_membership_id), '')), 'A')
+           || setweight(to_tsvector('english', coalesce(p_benefit, '')), 'B')
+$$;
+
+CREATE OR REPLACE FUNCTION perks_search_vector_refresh() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.search_vector := perk_search_vector(NEW.benefit, NEW.product_id, NEW.membership_id);
+    RETURN NEW;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_perks_search_vector ON perks;
+CREATE TRIGGER trg_perks_search_vector
+    BEFORE INSERT OR UPDATE OF benefit, product_id, membership_id ON perks
+    FOR EACH ROW EXECUTE FUNCTION perks_search_vector_refresh();
+
+-- Renaming a product or organization re-indexes the perks that show it
+CREATE OR REPLACE FUNCTION products_search_vector_refresh() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE perks SET search_vector = perk_search_vector(benefit, product_id, membership_id)
+    WHERE product_id = NEW.id;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_products_search_vector ON products;
+CREATE TRIGGER trg_products_search_vector
+    AFTER UPDATE OF name, company ON products
+    FOR EACH ROW
+    WHEN (OLD.name IS DISTINCT FROM NEW.name OR OLD.company IS DISTINCT FROM NEW.company)
+    EXECUTE FUNCTION products_search_vector_refresh();
+
+CREATE OR REPLACE FUNCTION memberships_search_vector_refresh() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE perks SET search_vector = perk_search_vector(benefit, product_id, membership_id)
+    WHERE membership_id = NEW.id;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_memberships_search_vector ON memberships;
+CREATE TRIGGER trg_memberships_search_vector
+    AFTER UPDATE OF org_name ON memberships
+    FOR EACH ROW
+    WHEN (OLD.org_name IS DISTINCT FROM NEW.org_name)
+    EXECUTE FUNCTION memberships_search_vector_refresh();
+
+-- Backfill existing rows
+UPDATE perks SET search_vector = perk_search_vector(benefit, product_id, membership_id);
+
+CREATE INDEX IF NOT EXISTS idx_perks_search_vector ON perks USING GIN (search_vector);
@@ -0,0 +1,9 @@
+-- V5__perk_region_trgm.sql
+-- Trigram index for the region filter, a case-insensitive substring match
+-- (lower(region) LIKE '%text%'). A B-tree cannot serve a leading wildcard, but a pg_trgm GIN index
+-- on the same expression can, so "anada" finds "Canada" without reading every perk.
+-- Filters shorter than three characters have no trigrams to look up and still scan.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_perks_region_trgm ON perks USING GIN (lower(region) gin_trgm_ops);
@@ -0,0 +1,12 @@
+-- V6__perk_expired.sql
+-- Expired flag on perks, set by PerkExpiryService when a perk's expiry date passes,
+-- so reads filter on a column instead of comparing every expiry date to the current time.
+
+ALTER TABLE perks ADD COLUMN IF NOT EXISTS expired BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Backfill perks that have already expired
+UPDATE perks SET expired = TRUE WHERE expiry_date <= now() AND NOT expired;
+
+-- Perks still waiting to expire, loaded by the expiry scheduler at startup and
+-- read by the "expiring only" filter
+CREATE INDEX IF NOT EXISTS idx_perks_pending_expiry ON perks (expiry_date) WHERE NOT expired;
@@ -0,0 +1,15 @@
+-- V7__perk_keyset_indexes.sql
+-- Composite indexes for keyset (cursor) paging of the perks list: a page sorted by rating
+-- or expiry starts at (sort value, id) of the previous page's last row instead of an offset.
+-- The ID tie-breaker follows the sort direction, so descending pages read the same indexes backwards.
+
+-- Expiry dates are read into java.util.Calendar, which holds milliseconds; store them at that
+-- precision so a cursor built from a loaded perk matches the stored value exactly
+ALTER TABLE perks ALTER COLUMN expiry_date TYPE TIMESTAMP(3);
+
+CREATE INDEX IF NOT EXISTS idx_perks_score_id ON perks (score, id);
+
+CREATE INDEX IF NOT EXISTS idx_perks_expiry_id ON perks (expiry_date, id);
+
+-- Covered by idx_perks_score_id
+DROP INDEX IF EXISTS idx_perks_score;
@@ -78,12 +78,20 @@ async function fetchTable(url) {
     }
 }
 
-async function preLoadNextPage(currentUrl) {
+// The "Next" link carries the cursor of the last row, so prefer it over page + 1
+function nextPageUrl(currentUrl) {
+    const nextLink = document.querySelector('.pager a[rel="next"]');
+    if (nextLink) return nextLink.href;
+
     const urlObj = new URL(currentUrl, window.location.origin);
     const page = parseInt(urlObj.searchParams.get("page") || "0", 10);
-
     urlObj.searchParams.set("page", page + 1);
-    const nextUrl = urlObj.toString();
+    urlObj.searchParams.delete("after");
+    return urlObj.toString();
+}
+
+async function preLoadNextPage(currentUrl) {
+    const nextUrl = nextPageUrl(currentUrl);
     const key = getCacheKey(nextUrl);
 
     if (cache[key]) return; // already cached
@@ -42,7 +42,8 @@ function initVotes() {
                     method: "POST",
                     headers: {
                         [csrfHeader]: csrfToken,
-                        "Content-Type": "application/x-www-form-urlencoded"
+                        "Content-Type": "application/x-www-form-urlencoded",
+                        "X-Requested-With": "XMLHttpRequest"
                     },
                     credentials: "same-origin"
                 });
@@ -51,7 +51,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -74,7 +75,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -92,7 +94,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -115,7 +118,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -138,7 +142,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -156,7 +161,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -179,7 +185,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -197,7 +204,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -220,7 +228,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -238,7 +247,8 @@ describe("Test Suite for successful upvotes and downvotes: ", () => {
                 method: "POST",
                 headers: {
                     "X-CSRF-TOKEN": "test-token",
-                    "Content-Type": "application/x-www-form-urlencoded"
+                    "Content-Type": "application/x-www-form-urlencoded",
+                    "X-Requested-With": "XMLHttpRequest"
                 },
                 credentials: "same-origin"
             }
@@ -0,0 +1,121 @@
+package com.example.perkmanager.controllers;
+
+import com.example.perkmanager.security.AccountPrincipal;
+import com.example.perkmanager.services.DataVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalGetInterceptorTest {
+
+    private DataVersion dataVersion;
+    private ConditionalGetInterceptor interceptor;
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        dataVersion = new DataVersion();
+        interceptor = new ConditionalGetInterceptor(dataVersion);
+        session = new MockHttpSession();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/perks");
+        request.setSession(session);
+        if (ifNoneMatch != null) request.addHeader("If-None-Match", ifNoneMatch);
+        return request;
+    }
+
+    private String firstEtag() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(null), response, new Object()));
+        return response.getHeader("ETag");
+    }
+
+    @Test
+    void preHandle_withoutValidator_shouldProceedWithWeakEtagAndLastModified() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get(null), response, new Object()));
+
+        assertTrue(response.getHeader("ETag").startsWith("W/\"" + dataVersion.current() + "-"));
+        assertEquals(dataVersion.lastModified() / 1000 * 1000, response.getDateHeader("Last-Modified"));
+        assertEquals("no-cache, private", response.getHeader("Cache-Control"));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void preHandle_withCurrentEtag_shouldAnswerNotModified() {
+        String etag = firstEtag();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(get(etag), response, new Object()));
+
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader("ETag"));
+    }
+
+    @Test
+    void preHandle_afterDataChanged_shouldProceed() {
+        String etag = firstEtag();
+        dataVersion.bump();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get(etag), response, new Object()));
+
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader("ETag"));
+    }
+
+    @Test
+    void preHandle_forAnotherViewer_shouldProceed() {
+        String guestEtag = firstEtag();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AccountPrincipal(5L, "user", "", List.of()), null, List.of()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get(guestEtag), response, new Object()));
+
+        session = new MockHttpSession();
+        String accountEtag = response.getHeader("ETag");
+        assertTrue(interceptor.preHandle(get(accountEtag), new MockHttpServletResponse(), new Object()));
+    }
+
+    @Test
+    void preHandle_forPost_shouldNotTouchResponse() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/perks");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+
+        assertNull(response.getHeader("ETag"));
+        assertNull(response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void postHandle_withLoadError_shouldNotLetBrowserStorePage() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(get(null), response, new Object());
+        ModelAndView modelAndView = new ModelAndView("perks");
+        modelAndView.addObject("error", "Failed to load perks");
+
+        interceptor.postHandle(get(null), response, new Object(), modelAndView);
+
+        assertEquals("no-store", response.getHeader("Cache-Control"));
+    }
+}
@@ -1,14 +1,17 @@
 package com.example.perkmanager.controllers;
 
-import com.example.perkmanager.model.Account;
+import com.example.perkmanager.metrics.StageTimers;
 import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.services.ParallelLoads;
+import com.example.perkmanager.services.PerkLeaderboardService;
 import com.example.perkmanager.services.PerkService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.springframework.ui.Model;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -16,77 +19,102 @@ import static org.mockito.Mockito.*;
 class HomeControllerTest {
 
     private PerkService perkService;
+    private PerkLeaderboardService leaderboardService;
     private HomeController homeController;
     private Model model;
 
     @BeforeEach
     void setUp() {
         perkService = mock(PerkService.class);
-        homeController = new HomeController(perkService);
+        leaderboardService = mock(PerkLeaderboardService.class);
+        homeController = new HomeController(perkService, leaderboardService, new StageTimers(new SimpleMeterRegistry()),
+                new ParallelLoads(2, 1000));
         model = mock(Model.class);
     }
+
     @Test
     void index_shouldAddTopRatedAndExpiringPerksToModel() {
-        // Arrange: create mock perks
+        // Arrange: leaderboard pages and the perks they point to
         Perk p1 = new Perk();
         p1.setBenefit("10% off movies");
-        Calendar future1 = Calendar.getInstance();
-        future1.add(Calendar.DAY_OF_YEAR, 5);
-        p1.setExpiryDate(future1);
-
         Perk p2 = new Perk();
         p2.setBenefit("Free coffee");
-        Calendar future2 = Calendar.getInstance();
-        future2.add(Calendar.DAY_OF_YEAR, 2);
-        p2.setExpiryDate(future2);
-
         Perk p3 = new Perk();
         p3.setBenefit("20% off flight");
-        p3.setExpiryDate(null);
-
-        // Create mock accounts for upvotes/downvotes
-        Account account1 = new Account();
-        account1.setUsername("user1");
-
-        Account account2 = new Account();
-        account2.setUsername("user2");
-
-        Account account3 = new Account();
-        account3.setUsername("user3");
-
-        // Add upvotes/downvotes
-        p1.addUpvote(account1);
-        p1.addUpvote(account2);
-
-        p2.addUpvote(account3);
-        p2.addDownvote(account1);
 
-        List<Perk> perks = Arrays.asList(p1, p2, p3);
-        when(perkService.getAllPerks()).thenReturn(perks);
+        when(leaderboardService.topRated(0, HomeController.PAGE_SIZE)).thenReturn(List.of(1L, 2L, 3L));
+        when(leaderboardService.topRatedCount()).thenReturn(3);
+        when(leaderboardService.expiringSoon(0, HomeController.PAGE_SIZE)).thenReturn(List.of(2L, 1L));
+        when(leaderboardService.expiringCount()).thenReturn(2);
+        when(perkService.findAllByIdInOrder(List.of(1L, 2L, 3L))).thenReturn(List.of(p1, p2, p3));
+        when(perkService.findAllByIdInOrder(List.of(2L, 1L))).thenReturn(List.of(p2, p1));
 
         // Act
         String view = homeController.index(0, 0, model);
 
-        // Assert view name
+        // Assert
         assertEquals("index", view);
+        verify(model).addAttribute("featuredTopRated", List.of(p1, p2, p3));
+        verify(model).addAttribute("featuredExpiring", List.of(p2, p1));
+        verify(model).addAttribute("topTotalPages", 1);
+        verify(model).addAttribute("expTotalPages", 1);
+        verify(perkService, never()).getAllPerks();
+    }
 
-        // Capture model attributes
-        ArgumentCaptor<List> topRatedCaptor = ArgumentCaptor.forClass(List.class);
-        ArgumentCaptor<List> expiringCaptor = ArgumentCaptor.forClass(List.class);
+    @Test
+    void index_shouldPassRequestedPagesToLeaderboards() {
+        when(leaderboardService.topRated(anyInt(), anyInt())).thenReturn(List.of());
+        when(leaderboardService.expiringSoon(anyInt(), anyInt())).thenReturn(List.of());
+        when(leaderboardService.topRatedCount()).thenReturn(9);
+        when(leaderboardService.expiringCount()).thenReturn(0);
+
+        homeController.index(2, 1, model);
+
+        verify(leaderboardService).topRated(2, HomeController.PAGE_SIZE);
+        verify(leaderboardService).expiringSoon(1, HomeController.PAGE_SIZE);
+        verify(model).addAttribute("topTotalPages", 3);
+        verify(model).addAttribute("expTotalPages", 0);
+    }
 
-        verify(model).addAttribute(eq("featuredTopRated"), topRatedCaptor.capture());
-        verify(model).addAttribute(eq("featuredExpiring"), expiringCaptor.capture());
+    @Test
+    void index_whenExpiringPerksFailToLoad_shouldShowSectionError() {
+        Perk top = new Perk();
+        when(leaderboardService.topRated(anyInt(), anyInt())).thenReturn(List.of(1L));
+        when(leaderboardService.expiringSoon(anyInt(), anyInt())).thenReturn(List.of(2L));
+        when(perkService.findAllByIdInOrder(List.of(1L))).thenReturn(List.of(top));
+        when(perkService.findAllByIdInOrder(List.of(2L))).thenThrow(new IllegalStateException("database down"));
 
-        List<Perk> topRated = topRatedCaptor.getValue();
-        List<Perk> expiring = expiringCaptor.getValue();
+        String view = homeController.index(0, 0, model);
 
-        // Top-rated perks should be sorted by rating descending, secondary by expiry
-        assertEquals(3, topRated.size());
-        assertEquals("10% off movies", topRated.get(0).getBenefit());
+        assertEquals("index", view);
+        verify(model).addAttribute("featuredTopRated", List.of(top));
+        verify(model).addAttribute("featuredExpiring", List.of());
+        verify(model).addAttribute("expiringError", "Failed to load expiring perks: database down");
+    }
 
-        // Expiring perks should be filtered to only future expiry, sorted by soonest expiry
-        assertEquals(2, expiring.size());
-        assertEquals("Free coffee", expiring.get(0).getBenefit());
-        assertEquals("10% off movies", expiring.get(1).getBenefit());
+    @Test
+    void index_whenExpiringPerksTimeOut_shouldShowSectionError() throws Exception {
+        homeController = new HomeController(perkService, leaderboardService, new StageTimers(new SimpleMeterRegistry()),
+                new ParallelLoads(2, 50));
+        CountDownLatch release = new CountDownLatch(1);
+        Perk top = new Perk();
+        when(leaderboardService.topRated(anyInt(), anyInt())).thenReturn(List.of(1L));
+        when(leaderboardService.expiringSoon(anyInt(), anyInt())).thenReturn(List.of(2L));
+        when(perkService.findAllByIdInOrder(List.of(1L))).thenReturn(List.of(top));
+        when(perkService.findAllByIdInOrder(List.of(2L))).thenAnswer(invocation -> {
+            release.await();
+            return List.of(new Perk());
+        });
+
+        try {
+            String view = homeController.index(0, 0, model);
+
+            assertEquals("index", view);
+            verify(model).addAttribute("featuredTopRated", List.of(top));
+            verify(model).addAttribute("featuredExpiring", List.of());
+            verify(model).addAttribute(eq("expiringError"), contains("took longer than 50 ms"));
+        } finally {
+            release.countDown();
+        }
     }
 }
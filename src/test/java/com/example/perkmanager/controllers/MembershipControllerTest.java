@@ -4,10 +4,15 @@ import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
 import com.example.perkmanager.services.MembershipService;
+import com.example.perkmanager.utils.LongHashSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.ui.Model;
 
@@ -31,7 +36,7 @@ public class MembershipControllerTest {
     void setup() {
         membershipService = mock(MembershipService.class);
         accountService = mock(AccountService.class);
-        membershipController = new MembershipController(membershipService,  accountService);
+        membershipController = new MembershipController(membershipService, accountService, new ObjectMapper().writer());
         model = mock(Model.class);
     }
 
@@ -103,7 +108,7 @@ public class MembershipControllerTest {
 
         when(membershipService.getAllMemberships()).thenReturn(memberships);
 
-        String view = membershipController.listMemberships(null, model);
+        String view = membershipController.listMemberships(null, null, model);
 
         assertEquals("memberships", view);
 
@@ -118,6 +123,54 @@ public class MembershipControllerTest {
         assertEquals("test organization", m.getOrganizationName());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void listMemberships_withReadOnlyCatalog_shouldSortCopy() {
+        Membership visa = new Membership("Card", "Visa", "Visa Infinite");
+        Membership costco = new Membership("Club", "Costco", "Executive");
+        // The service returns the shared, read-only catalog list
+        List<Membership> catalog = List.of(visa, costco);
+        when(membershipService.getAllMemberships()).thenReturn(catalog);
+
+        String view = membershipController.listMemberships(null, null, model);
+
+        assertEquals("memberships", view);
+        ArgumentCaptor<List> memberships = ArgumentCaptor.forClass(List.class);
+        verify(model).addAttribute(eq("memberships"), memberships.capture());
+        assertEquals(List.of(costco, visa), memberships.getValue());
+        assertEquals(List.of(visa, costco), catalog);
+        verify(model, never()).addAttribute(eq("error"), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listMembershipsLoggedIn_shouldUseCurrentAccountMembershipIds() {
+        Membership visa = new Membership("Card", "Visa", "Visa Infinite");
+        visa.setId(1L);
+        Membership costco = new Membership("Club", "Costco", "Executive");
+        costco.setId(2L);
+        when(membershipService.getAllMemberships()).thenReturn(List.of(visa, costco));
+        CurrentAccount account = new CurrentAccount(5L, "user", LongHashSet.of(2L), LongHashSet.of());
+
+        CsrfToken csrf = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "token-123");
+
+        String view = membershipController.listMemberships(account, csrf, model);
+
+        assertEquals("memberships", view);
+        ArgumentCaptor<List> memberships = ArgumentCaptor.forClass(List.class);
+        verify(model).addAttribute(eq("memberships"), memberships.capture());
+        assertEquals(List.of(costco, visa), memberships.getValue());
+        verify(model).addAttribute("saveStates", Map.of(1L, 0, 2L, 1));
+        verify(model).addAttribute("isAuthenticated", true);
+        // The CSRF token is sent once for the page, not with every membership
+        verify(model).addAttribute("membershipsJson",
+                "[{\"id\":2,\"type\":\"Club\",\"organization\":\"Costco\",\"description\":\"Executive\",\"saveState\":1},"
+                        + "{\"id\":1,\"type\":\"Card\",\"organization\":\"Visa\",\"description\":\"Visa Infinite\",\"saveState\":0}]");
+        verify(model).addAttribute("membershipsPageJson",
+                "{\"csrfParam\":\"_csrf\",\"csrfToken\":\"token-123\",\"csrfHeader\":\"X-CSRF-TOKEN\",\"isAuthenticated\":true}");
+        verifyNoInteractions(accountService);
+    }
+
     @Test
     void toggleSavePerk() {
         Account account = new Account();
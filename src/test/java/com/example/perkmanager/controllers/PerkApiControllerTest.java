@@ -0,0 +1,109 @@
+package com.example.perkmanager.controllers;
+
+import com.example.perkmanager.metrics.StageTimers;
+import com.example.perkmanager.model.Membership;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.model.Product;
+import com.example.perkmanager.services.CurrentAccount;
+import com.example.perkmanager.services.PerkAccountStates;
+import com.example.perkmanager.services.PerkCursor;
+import com.example.perkmanager.services.PerkService;
+import com.example.perkmanager.utils.LongHashSet;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerkApiControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PerkService perkService;
+    private PerkApiController controller;
+
+    @BeforeEach
+    void setUp() {
+        perkService = mock(PerkService.class);
+        controller = new PerkApiController(perkService, new StageTimers(new SimpleMeterRegistry()), objectMapper);
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+    }
+
+    private JsonNode get(Optional<String> sort, Optional<Integer> page, Optional<String> after,
+                         CurrentAccount account) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.listPerks(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), sort, Optional.of("desc"), page, Optional.of(2), after, account, response);
+        assertEquals("application/json;charset=UTF-8", response.getContentType());
+        return objectMapper.readTree(response.getContentAsByteArray());
+    }
+
+    @Test
+    void listPerks_shouldStreamPageWithPerksAndStates() throws Exception {
+        Perk perk = new Perk(new Membership("Card", "Visa", "Visa Rewards"), new Product("Movie", "Cinema"), "10% off");
+        perk.setId(3L);
+        perk.setRegion("Canada");
+        Calendar expiry = Calendar.getInstance();
+        perk.setExpiryDate(expiry);
+        Perk bare = new Perk();
+        bare.setId(4L);
+        bare.setBenefit("Free coffee");
+        CurrentAccount account = new CurrentAccount(5L, "user", LongHashSet.of(), LongHashSet.of());
+
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(List.of(perk, bare), i.getArgument(5), 7));
+        when(perkService.getAccountStates(5L, List.of(perk, bare)))
+                .thenReturn(new PerkAccountStates(Map.of(3L, -1), Map.of(3L, 1)));
+        when(perkService.nextCursor(any())).thenReturn(Optional.of(new PerkCursor(0L, 4L)));
+
+        JsonNode body = get(Optional.of("rating"), Optional.empty(), Optional.empty(), account);
+
+        assertEquals(0, body.get("page").asInt());
+        assertEquals(2, body.get("size").asInt());
+        assertEquals(4, body.get("totalPages").asInt());
+        assertEquals(7, body.get("totalPerks").asLong());
+        assertEquals("0:4", body.get("nextCursor").asText());
+
+        JsonNode first = body.get("perks").get(0);
+        assertEquals(3, first.get("id").asLong());
+        assertEquals("10% off", first.get("benefit").asText());
+        assertEquals(expiry.getTimeInMillis(), first.get("expiryDate").asLong());
+        assertEquals("Visa", first.get("membership").get("organizationName").asText());
+        assertEquals("Cinema", first.get("product").get("company").asText());
+        assertEquals(-1, first.get("voteState").asInt());
+        assertEquals(1, first.get("saveState").asInt());
+
+        JsonNode second = body.get("perks").get(1);
+        assertTrue(second.get("expiryDate").isNull());
+        assertFalse(second.has("membership"));
+        assertEquals(0, second.get("voteState").asInt());
+    }
+
+    @Test
+    void listPerks_withCursor_shouldReadPageAfterCursor() throws Exception {
+        Perk perk = new Perk();
+        perk.setId(9L);
+        when(perkService.filterPerksAfter(any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(List.of(perk), i.getArgument(5), 3));
+
+        JsonNode body = get(Optional.of("rating"), Optional.of(1), Optional.of("2:8"), null);
+
+        verify(perkService).filterPerksAfter(any(), any(), any(), any(), any(),
+                eq(PageRequest.of(1, 2)), eq(new PerkCursor(2L, 8L)));
+        verify(perkService, never()).getAccountStates(any(), any());
+        assertEquals(1, body.get("page").asInt());
+        assertTrue(body.get("nextCursor").isNull());
+        assertEquals(9, body.get("perks").get(0).get("id").asLong());
+    }
+}
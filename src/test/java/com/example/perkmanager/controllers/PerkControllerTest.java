@@ -1,17 +1,33 @@
 package com.example.perkmanager.controllers;
 
+import com.example.perkmanager.dto.PerkPageDto;
+import com.example.perkmanager.metrics.StageTimers;
 import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.Product;
+import com.example.perkmanager.security.AccountPrincipal;
 import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
+import com.example.perkmanager.services.DataVersion;
 import com.example.perkmanager.services.MembershipService;
+import com.example.perkmanager.services.PerkAccountStates;
+import com.example.perkmanager.services.PerkCursor;
 import com.example.perkmanager.services.PerkService;
 import com.example.perkmanager.services.ProductService;
+import com.example.perkmanager.utils.LongHashSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
 import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
@@ -19,6 +35,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,6 +47,7 @@ public class PerkControllerTest {
     private MembershipService membershipService;
     private ProductService productService;
     private AccountService accountService;
+    private DataVersion dataVersion;
     private Model model;
     private RedirectAttributes redirectAttributes;
 
@@ -39,7 +57,9 @@ public class PerkControllerTest {
         membershipService = mock(MembershipService.class);
         productService = mock(ProductService.class);
         accountService = mock(AccountService.class);
-        perkController = new PerkController(perkService, productService, membershipService, accountService);
+        dataVersion = new DataVersion();
+        perkController = new PerkController(perkService, productService, membershipService, accountService,
+                new StageTimers(new SimpleMeterRegistry()), dataVersion, new ObjectMapper().writer());
         model = mock(Model.class);
         redirectAttributes = new RedirectAttributesModelMap();
     }
@@ -50,13 +70,15 @@ public class PerkControllerTest {
         perk.setBenefit("10% off");
         List<Perk> perkList = List.of(perk);
 
-        when(perkService.filterPerks(any(), any(), any(), any())).thenReturn(perkList);
-        when(perkService.sortPerks(any(), any(), any())).thenReturn(perkList);
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(perkList, i.getArgument(5), perkList.size()));
 
         String view = perkController.listPerks(
                 Optional.empty(), Optional.empty(), Optional.empty(),
-                Optional.empty(), Optional.empty(), Optional.empty(),
-                Optional.empty(), Optional.empty(), null,
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), null, null,
                 model
         );
 
@@ -65,8 +87,211 @@ public class PerkControllerTest {
         verify(model).addAttribute("page", 0);
         verify(model).addAttribute("size", 5);
         verify(model).addAttribute("totalPages", 1);
-        verify(model).addAttribute("totalPerks", perkList.size());
+        verify(model).addAttribute("totalPerks", (long) perkList.size());
         verify(model).addAttribute("myMembershipsOnly", false);
+        verify(model).addAttribute("dataVersion", dataVersion.current());
+    }
+
+    @Test
+    void listPerksPastLastPage() {
+        Perk perk = new Perk();
+        perk.setBenefit("10% off");
+        List<Perk> perkList = List.of(perk);
+
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> {
+                    PageRequest request = i.getArgument(5);
+                    List<Perk> content = request.getPageNumber() == 0 ? perkList : List.of();
+                    return new PageImpl<>(content, request, perkList.size());
+                });
+
+        String view = perkController.listPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of(3), Optional.empty(), Optional.empty(), null, null,
+                model
+        );
+
+        assertEquals("perks", view);
+        verify(perkService).pageRequest(3, 5, Optional.empty(), Optional.empty());
+        verify(perkService).pageRequest(0, 5, Optional.empty(), Optional.empty());
+        verify(model).addAttribute("perks", perkList);
+        verify(model).addAttribute("page", 0);
+    }
+
+    @Test
+    void listPerksLoggedIn_shouldLoadAccountStatesForPage() {
+        Perk perk = new Perk();
+        perk.setId(3L);
+        List<Perk> perkList = List.of(perk);
+        CurrentAccount account = new CurrentAccount(5L, "user", LongHashSet.of(), LongHashSet.of());
+        PerkAccountStates states = new PerkAccountStates(Map.of(3L, -1), Map.of(3L, 1));
+
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(perkList, i.getArgument(5), perkList.size()));
+        when(perkService.getAccountStates(5L, perkList)).thenReturn(states);
+
+        String view = perkController.listPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), account, null,
+                model
+        );
+
+        assertEquals("perks", view);
+        verify(perkService).getAccountStates(5L, perkList);
+        verify(model).addAttribute("voteStates", Map.of(3L, -1));
+        verify(model).addAttribute("saveStates", Map.of(3L, 1));
+        verify(model).addAttribute("isAuthenticated", true);
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void listPerksMyMembershipsOnly_shouldFilterByCurrentAccountMembershipIds() {
+        CurrentAccount account = new CurrentAccount(5L, "user", LongHashSet.of(7L, 8L), LongHashSet.of());
+
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(List.of(), i.getArgument(5), 0));
+        when(perkService.getAccountStates(eq(5L), any())).thenReturn(PerkAccountStates.none());
+
+        perkController.listPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of(true), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), account, null,
+                model
+        );
+
+        verify(perkService, atLeastOnce()).filterPerks(any(), any(), any(), eq(Optional.of(Set.of(7L, 8L))), any(), any());
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void listPerksSearch_withoutSort_shouldOrderByRelevance() {
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(List.of(), i.getArgument(5), 0));
+
+        perkController.listPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of(" costco "), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), null, null,
+                model
+        );
+
+        verify(perkService).pageRequest(0, 5, Optional.of("relevance"), Optional.empty());
+        verify(perkService).filterPerks(any(), any(), any(), any(), eq(Optional.of("costco")), any());
+        verify(model).addAttribute("q", " costco ");
+    }
+
+    @Test
+    void listPerks_shouldEmbedOnlyPageJsonWithSharedCsrf() {
+        Perk perk = new Perk();
+        perk.setId(1L);
+        List<Perk> perkList = List.of(perk);
+        CsrfToken csrf = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "token-123");
+        ArgumentCaptor<Object> json = ArgumentCaptor.forClass(Object.class);
+
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(perkList, i.getArgument(5), 1000));
+
+        perkController.listPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of(100), Optional.empty(), Optional.empty(), null, csrf,
+                model
+        );
+
+        verify(model).addAttribute(eq("perksJson"), json.capture());
+        assertFalse(((String) json.getValue()).contains("csrf"));
+        verify(model).addAttribute(eq("perksPageJson"), json.capture());
+        assertTrue(((String) json.getValue()).contains("\"csrfToken\":\"token-123\""));
+        assertTrue(((String) json.getValue()).contains("\"isAuthenticated\":false"));
+        verify(model).addAttribute("pagerStart", 98);
+        verify(model).addAttribute("pagerEnd", 102);
+    }
+
+    @Test
+    void listPerksWithCursor_shouldLoadPageAfterCursorAndLinkNextCursor() {
+        Perk perk = new Perk();
+        perk.setId(6L);
+        List<Perk> perkList = List.of(perk);
+
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerksAfter(any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(perkList, i.getArgument(5), 100));
+        when(perkService.nextCursor(any())).thenReturn(Optional.of(new PerkCursor(4L, 6L)));
+
+        perkController.listPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.of("rating"), Optional.of("desc"),
+                Optional.of(7), Optional.empty(), Optional.of("5:9"), null, null,
+                model
+        );
+
+        verify(perkService).filterPerksAfter(any(), any(), any(), any(), any(),
+                eq(PageRequest.of(7, 5)), eq(new PerkCursor(5L, 9L)));
+        verify(perkService, never()).filterPerks(any(), any(), any(), any(), any(), any());
+        verify(model).addAttribute("page", 7);
+        verify(model).addAttribute("nextCursor", "4:6");
+    }
+
+    @Test
+    void listPerksWithCursorPastEnd_shouldShowLastPage() {
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerksAfter(any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(List.of(), i.getArgument(5), 3));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(List.of(new Perk()), i.getArgument(5), 3));
+        when(perkService.nextCursor(any())).thenReturn(Optional.empty());
+
+        perkController.listPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.of("rating"), Optional.empty(),
+                Optional.of(1), Optional.of(2), Optional.of("5:9"), null, null,
+                model
+        );
+
+        verify(perkService).filterPerks(any(), any(), any(), any(), any(), eq(PageRequest.of(1, 2)));
+        verify(model).addAttribute("page", 1);
+        verify(model).addAttribute("nextCursor", null);
+    }
+
+    @Test
+    void perksData_shouldReturnRequestedPageAsJson() {
+        Perk perk = new Perk();
+        perk.setId(1L);
+        perk.setBenefit("10% off");
+        List<Perk> perkList = List.of(perk);
+
+        when(perkService.pageRequest(anyInt(), anyInt(), any(), any()))
+                .thenAnswer(i -> PageRequest.of(i.getArgument(0), i.getArgument(1)));
+        when(perkService.filterPerks(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(i -> new PageImpl<>(perkList, i.getArgument(5), perkList.size()));
+
+        PerkPageDto body = perkController.perksData(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of(5000), Optional.empty(), null
+        );
+
+        verify(perkService).pageRequest(0, PerkController.MAX_PAGE_SIZE, Optional.empty(), Optional.empty());
+        assertEquals(0, body.page());
+        assertEquals(PerkController.MAX_PAGE_SIZE, body.size());
+        assertEquals(1L, body.totalPerks());
+        assertNull(body.nextCursor());
+        assertEquals("10% off", body.perks().get(0).benefit());
+        assertEquals(0, body.perks().get(0).voteState());
     }
 
     @Test
@@ -193,6 +418,7 @@ public class PerkControllerTest {
     @Test
     void toggleUpvote() {
         Account account = new Account();
+        account.setId(5L);
         when(accountService.findByUsername(anyString())).thenReturn(Optional.of(account));
 
         UserDetails userDetails = mock(UserDetails.class);
@@ -202,12 +428,32 @@ public class PerkControllerTest {
 
         assertEquals("1", redirectAttributes.getAttribute("page"));
         assertEquals("redirect:/perks", view);
-        verify(perkService).toggleUpvotePerk(1L, account);
+        verify(perkService).toggleUpvotePerk(1L, 5L);
+    }
+
+    @Test
+    void toggleUpvoteAsync_shouldUsePrincipalAccountId() {
+        AccountPrincipal principal = new AccountPrincipal(5L, "user", "pw", List.of());
+
+        ResponseEntity<Void> response = perkController.toggleUpvoteAsync(1L, principal);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        verify(perkService).toggleUpvotePerk(1L, 5L);
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void toggleUpvoteAsync_notLoggedIn() {
+        ResponseEntity<Void> response = perkController.toggleUpvoteAsync(1L, null);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(perkService);
     }
 
     @Test
     void toggleDownvote() {
         Account account = new Account();
+        account.setId(5L);
         when(accountService.findByUsername(anyString())).thenReturn(Optional.of(account));
 
         UserDetails userDetails = mock(UserDetails.class);
@@ -217,7 +463,26 @@ public class PerkControllerTest {
 
         assertEquals("1", redirectAttributes.getAttribute("page"));
         assertEquals("redirect:/perks", view);
-        verify(perkService).toggleDownvotePerk(1L, account);
+        verify(perkService).toggleDownvotePerk(1L, 5L);
+    }
+
+    @Test
+    void toggleDownvoteAsync_shouldUsePrincipalAccountId() {
+        AccountPrincipal principal = new AccountPrincipal(5L, "user", "pw", List.of());
+
+        ResponseEntity<Void> response = perkController.toggleDownvoteAsync(1L, principal);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        verify(perkService).toggleDownvotePerk(1L, 5L);
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void toggleDownvoteAsync_notLoggedIn() {
+        ResponseEntity<Void> response = perkController.toggleDownvoteAsync(1L, null);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(perkService);
     }
 
     @Test
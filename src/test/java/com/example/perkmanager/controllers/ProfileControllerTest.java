@@ -1,10 +1,15 @@
 package com.example.perkmanager.controllers;
 
+import com.example.perkmanager.metrics.StageTimers;
 import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
+import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
 import com.example.perkmanager.services.MembershipService;
 import com.example.perkmanager.services.PerkService;
+import com.example.perkmanager.utils.LongHashSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -37,7 +42,8 @@ public class ProfileControllerTest {
         perkService = mock(PerkService.class);
         model = mock(Model.class);
 
-        profileController = new ProfileController(accountService, membershipService, perkService);
+        profileController = new ProfileController(accountService, membershipService, perkService,
+                new StageTimers(new SimpleMeterRegistry()));
         // ensure no leftover auth between tests
         SecurityContextHolder.clearContext();
     }
@@ -48,7 +54,7 @@ public class ProfileControllerTest {
         // no authentication in SecurityContext => guest
         SecurityContextHolder.clearContext();
 
-        String view = profileController.profile(model);
+        String view = profileController.profile(null, model);
         assertEquals("profile", view);
 
         // verify model attributes for guest
@@ -59,6 +65,39 @@ public class ProfileControllerTest {
         verify(model).addAttribute(eq("perks"), any());
     }
 
+    @Test
+    @DisplayName("profile() shows the current account's memberships and saved perks without loading the account")
+    @SuppressWarnings("unchecked")
+    void profileLoggedIn() {
+        Membership visa = new Membership("Card", "Visa", "Visa Infinite");
+        visa.setId(1L);
+        Membership costco = new Membership("Club", "Costco", "Executive");
+        costco.setId(2L);
+        Membership amex = new Membership("Card", "Amex", "Gold");
+        amex.setId(3L);
+        when(membershipService.getAllMemberships()).thenReturn(List.of(visa, costco, amex));
+
+        Perk visaPerk = new Perk(visa, null, "5% off");
+        visaPerk.setId(10L);
+        Perk costcoPerk = new Perk(costco, null, "Free gas");
+        costcoPerk.setId(11L);
+        when(perkService.findAllByIdInOrder(anyList())).thenReturn(List.of(visaPerk, costcoPerk));
+
+        CurrentAccount account = new CurrentAccount(5L, "bob", LongHashSet.of(1L, 2L), LongHashSet.of(10L, 11L));
+
+        String view = profileController.profile(account, model);
+
+        assertEquals("profile", view);
+        verify(model).addAttribute("isAuthenticated", true);
+        verify(model).addAttribute("account", account);
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(model).addAttribute(eq("memberships"), captor.capture());
+        assertEquals(List.of(costco, visa), captor.getValue());
+        verify(model).addAttribute(eq("perks"), captor.capture());
+        assertEquals(List.of(costcoPerk, visaPerk), captor.getValue());
+        verifyNoInteractions(accountService);
+    }
+
     @Test
     @DisplayName("removeMembership() redirects to /login when unauthenticated")
     void removeMembershipRedirectsWhenGuest() {
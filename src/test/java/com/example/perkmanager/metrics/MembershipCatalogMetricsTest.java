@@ -0,0 +1,34 @@
+package com.example.perkmanager.metrics;
+
+import com.example.perkmanager.repositories.MembershipRepository;
+import com.example.perkmanager.services.DataVersion;
+import com.example.perkmanager.services.MembershipService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MembershipCatalogMetricsTest {
+
+    @Test
+    void bindToPublishesCatalogHitsMissesAndVersion() {
+        MembershipRepository membershipRepository = mock(MembershipRepository.class);
+        when(membershipRepository.findAll()).thenReturn(List.of());
+        MembershipService membershipService = new MembershipService(membershipRepository, new DataVersion());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MembershipCatalogMetrics(membershipService).bindTo(registry);
+
+        membershipService.getAllMemberships();
+        membershipService.getAllMembershipTypes();
+        membershipService.getAllMembershipTypes();
+
+        assertEquals(2, registry.get(MembershipCatalogMetrics.REQUESTS_METRIC)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get(MembershipCatalogMetrics.REQUESTS_METRIC)
+                .tag("result", "miss").functionCounter().count());
+        assertEquals(0, registry.get(MembershipCatalogMetrics.VERSION_METRIC).gauge().value());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.perkmanager.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageTimersTest {
+
+    private SimpleMeterRegistry registry;
+    private StageTimers stageTimers;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        stageTimers = new StageTimers(registry);
+    }
+
+    @Test
+    void timeRecordsStageAndReturnsResult() {
+        String result = stageTimers.time("/perks", "query", () -> "page");
+
+        assertEquals("page", result);
+        Timer timer = registry.get(StageTimers.METRIC_NAME)
+                .tag("endpoint", "/perks").tag("stage", "query").timer();
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void timeRecordsStageWhenWorkThrows() {
+        assertThrows(IllegalStateException.class, () -> stageTimers.time("/perks", "query", () -> {
+            throw new IllegalStateException("query failed");
+        }));
+
+        assertEquals(1, registry.get(StageTimers.METRIC_NAME).tag("stage", "query").timer().count());
+    }
+
+    @Test
+    void summariesGroupStagesByEndpoint() {
+        stageTimers.record("/perks", "query", TimeUnit.MILLISECONDS.toNanos(10));
+        stageTimers.record("/perks", "query", TimeUnit.MILLISECONDS.toNanos(30));
+        stageTimers.record("/perks", "json", TimeUnit.MILLISECONDS.toNanos(2));
+        stageTimers.record("/", "leaderboard", TimeUnit.MILLISECONDS.toNanos(1));
+
+        Map<String, Map<String, StageTimers.StageSummary>> summaries = stageTimers.summaries();
+
+        assertEquals(2, summaries.size());
+        assertEquals(2, summaries.get("/perks").size());
+        StageTimers.StageSummary query = summaries.get("/perks").get("query");
+        assertEquals(2, query.count());
+        assertEquals(20.0, query.meanMs(), 0.001);
+        assertEquals(30.0, query.maxMs(), 0.001);
+        assertTrue(query.p99Ms() >= query.p50Ms());
+        assertTrue(query.p50Ms() > 0);
+        assertEquals(1, summaries.get("/").get("leaderboard").count());
+    }
+
+    @Test
+    void renderInterceptorRecordsRenderStage() {
+        RenderTimingInterceptor interceptor = new RenderTimingInterceptor(stageTimers);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/perks");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/perks");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.postHandle(request, response, new Object(), new ModelAndView("perks"));
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertEquals(1, stageTimers.summaries().get("/perks").get("render").count());
+    }
+
+    @Test
+    void renderInterceptorSkipsResponsesWithoutView() {
+        RenderTimingInterceptor interceptor = new RenderTimingInterceptor(stageTimers);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/perks");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/perks");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.postHandle(request, response, new Object(), null);
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertTrue(stageTimers.summaries().isEmpty());
+    }
+}
@@ -118,4 +118,28 @@ class PerkTest {
         assertEquals(-60, perk.getRating());
         assertEquals(160, perk.getTotalRatings());
     }
+
+    @Test
+    void voteCountersFollowUpvotesAndDownvotes() {
+        Account acc1 = new Account();
+        Account acc2 = new Account();
+        Account acc3 = new Account();
+
+        perk.addUpvote(acc1);
+        perk.addUpvote(acc2);
+        perk.addUpvote(acc2); // duplicate upvote is not counted twice
+        perk.addDownvote(acc3);
+
+        assertEquals(2, perk.getUpvoteCount());
+        assertEquals(1, perk.getDownvoteCount());
+        assertEquals(1, perk.getRating());
+        assertEquals(3, perk.getTotalRatings());
+
+        perk.removeUpvote(acc1);
+        perk.removeDownvote(acc1); // not a downvoter, counters unchanged
+
+        assertEquals(1, perk.getUpvoteCount());
+        assertEquals(1, perk.getDownvoteCount());
+        assertEquals(0, perk.getRating());
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.perkmanager.repositories;
+
+import com.example.perkmanager.model.Perk;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkRepositoryTest {
+
+    @Test
+    void listGraph_shouldFetchMembershipAndProduct() {
+        NamedEntityGraph graph = Perk.class.getAnnotation(NamedEntityGraph.class);
+
+        assertNotNull(graph);
+        assertEquals(Perk.LIST_GRAPH, graph.name());
+        Set<String> attributes = Arrays.stream(graph.attributeNodes())
+                .map(NamedAttributeNode::value)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("membership", "product"), attributes);
+    }
+
+    @Test
+    void listQueries_shouldUseListGraph() throws NoSuchMethodException {
+        EntityGraph page = PerkRepository.class
+                .getMethod("findAll", Specification.class, Pageable.class)
+                .getAnnotation(EntityGraph.class);
+        EntityGraph byId = PerkRepository.class
+                .getMethod("findAllById", Iterable.class)
+                .getAnnotation(EntityGraph.class);
+
+        assertNotNull(page);
+        assertEquals(Perk.LIST_GRAPH, page.value());
+        assertNotNull(byId);
+        assertEquals(Perk.LIST_GRAPH, byId.value());
+    }
+}
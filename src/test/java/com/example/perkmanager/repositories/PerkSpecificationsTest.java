@@ -0,0 +1,146 @@
+package com.example.perkmanager.repositories;
+
+import com.example.perkmanager.model.Perk;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaExpression;
+import org.hibernate.query.criteria.JpaPredicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+class PerkSpecificationsTest {
+
+    private Root<Perk> root;
+    private CriteriaQuery<?> query;
+    private CriteriaBuilder cb;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        root = mock(Root.class);
+        query = mock(CriteriaQuery.class);
+        cb = mock(CriteriaBuilder.class);
+    }
+
+    @Test
+    void blankCriteria_shouldProduceNoRestriction() {
+        assertNull(PerkSpecifications.hasMembershipType(null));
+        assertNull(PerkSpecifications.hasMembershipType("   "));
+        assertNull(PerkSpecifications.regionContains(null));
+        assertNull(PerkSpecifications.regionContains(""));
+        assertNull(PerkSpecifications.matchesSearch(null));
+        assertNull(PerkSpecifications.matchesSearch("  "));
+        assertNull(PerkSpecifications.orderedBySearchRank(""));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void regionContains_shouldBuildLowercaseLikePredicate() {
+        Path<Object> region = mock(Path.class);
+        Expression<String> lowered = mock(Expression.class);
+        Predicate predicate = mock(Predicate.class);
+        when(root.get("region")).thenReturn(region);
+        when(cb.lower(any())).thenReturn(lowered);
+        when(cb.like(lowered, "%anada%", '\\')).thenReturn(predicate);
+
+        Predicate result = PerkSpecifications.regionContains("ANADA").toPredicate(root, query, cb);
+
+        assertSame(predicate, result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void regionContains_shouldMatchWildcardsLiterally() {
+        Path<Object> region = mock(Path.class);
+        Expression<String> lowered = mock(Expression.class);
+        Predicate predicate = mock(Predicate.class);
+        when(root.get("region")).thenReturn(region);
+        when(cb.lower(any())).thenReturn(lowered);
+        when(cb.like(lowered, "%10\\%\\_off\\\\%", '\\')).thenReturn(predicate);
+
+        Predicate result = PerkSpecifications.regionContains("10%_off\\").toPredicate(root, query, cb);
+
+        assertSame(predicate, result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchesSearch_shouldMatchSearchVectorAgainstTrimmedText() {
+        HibernateCriteriaBuilder hcb = mock(HibernateCriteriaBuilder.class);
+        JpaExpression<String> text = mock(JpaExpression.class);
+        JpaExpression<Boolean> match = mock(JpaExpression.class);
+        JpaPredicate predicate = mock(JpaPredicate.class);
+        when(hcb.value("air canada")).thenReturn(text);
+        when(hcb.sql(contains("search_vector @@"), eq(Boolean.class), eq(text))).thenReturn(match);
+        when(hcb.isTrue(match)).thenReturn(predicate);
+
+        Predicate result = PerkSpecifications.matchesSearch(" air canada ").toPredicate(root, query, hcb);
+
+        assertSame(predicate, result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void expiresLater_shouldUseExpiredFlagInsteadOfCurrentTime() {
+        Path<Object> expiryDate = mock(Path.class);
+        Path<Object> expired = mock(Path.class);
+        Predicate hasExpiry = mock(Predicate.class);
+        Predicate notExpired = mock(Predicate.class);
+        Predicate predicate = mock(Predicate.class);
+        when(root.get("expiryDate")).thenReturn(expiryDate);
+        when(root.get("expired")).thenReturn(expired);
+        when(cb.isNotNull(expiryDate)).thenReturn(hasExpiry);
+        when(cb.isFalse(any())).thenReturn(notExpired);
+        when(cb.and(hasExpiry, notExpired)).thenReturn(predicate);
+
+        Predicate result = PerkSpecifications.expiresLater().toPredicate(root, query, cb);
+
+        assertSame(predicate, result);
+        verify(cb, never()).greaterThan(any(Expression.class), any(Comparable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void after_shouldCompareSortKeyAndIdAsRowValue() {
+        HibernateCriteriaBuilder hcb = mock(HibernateCriteriaBuilder.class);
+        Path<Object> score = mock(Path.class);
+        Path<Object> id = mock(Path.class);
+        JpaExpression<Object> value = mock(JpaExpression.class);
+        JpaExpression<Object> lastId = mock(JpaExpression.class);
+        JpaExpression<Boolean> comparison = mock(JpaExpression.class);
+        JpaPredicate predicate = mock(JpaPredicate.class);
+        when(root.get("score")).thenReturn(score);
+        when(root.get("id")).thenReturn(id);
+        when(hcb.value((Object) 12)).thenReturn(value);
+        when(hcb.value((Object) 9L)).thenReturn(lastId);
+        when(hcb.sql("(?, ?) < (?, ?)", Boolean.class, score, id, value, lastId)).thenReturn(comparison);
+        when(hcb.isTrue(comparison)).thenReturn(predicate);
+
+        Predicate result = PerkSpecifications.after("score", 12, 9L, true).toPredicate(root, query, hcb);
+
+        assertSame(predicate, result);
+    }
+
+    @Test
+    void membershipIdIn_emptySet_shouldMatchNothing() {
+        Predicate never = mock(Predicate.class);
+        when(cb.disjunction()).thenReturn(never);
+
+        Predicate result = PerkSpecifications.membershipIdIn(Collections.<Long>emptySet())
+                .toPredicate(root, query, cb);
+
+        assertSame(never, result);
+        verifyNoInteractions(root);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.perkmanager.security;
+
+import com.example.perkmanager.repositories.AccountCredentials;
+import com.example.perkmanager.services.AccountCredentialsChangedEvent;
+import com.example.perkmanager.services.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccountDetailsServiceTest {
+
+    private AccountService accountService;
+    private AccountDetailsService detailsService;
+
+    @BeforeEach
+    void setUp() {
+        accountService = mock(AccountService.class);
+        detailsService = new AccountDetailsService(accountService, 2, 2, 300);
+    }
+
+    private static AccountCredentials credentials(long id, String username, String password) {
+        AccountCredentials credentials = mock(AccountCredentials.class);
+        when(credentials.getId()).thenReturn(id);
+        when(credentials.getUsername()).thenReturn(username);
+        when(credentials.getPassword()).thenReturn(password);
+        return credentials;
+    }
+
+    @Test
+    void loadUserByUsername_returnsPrincipalWithAccountId() {
+        AccountCredentials alice = credentials(1L, "alice", "hash");
+        when(accountService.findCredentials("alice")).thenReturn(Optional.of(alice));
+
+        UserDetails user = detailsService.loadUserByUsername("alice");
+
+        assertInstanceOf(AccountPrincipal.class, user);
+        assertEquals(1L, ((AccountPrincipal) user).getAccountId());
+        assertEquals("alice", user.getUsername());
+        assertEquals("hash", user.getPassword());
+        assertTrue(user.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+    }
+
+    @Test
+    void loadUserByUsername_usesCacheForRepeatedLogins() {
+        AccountCredentials alice = credentials(1L, "alice", "hash");
+        when(accountService.findCredentials("alice")).thenReturn(Optional.of(alice));
+
+        detailsService.loadUserByUsername("alice");
+        detailsService.loadUserByUsername("alice");
+
+        verify(accountService, times(1)).findCredentials("alice");
+    }
+
+    @Test
+    void loadUserByUsername_returnsFreshPrincipalEachTime() {
+        AccountCredentials alice = credentials(1L, "alice", "hash");
+        when(accountService.findCredentials("alice")).thenReturn(Optional.of(alice));
+
+        AccountPrincipal first = (AccountPrincipal) detailsService.loadUserByUsername("alice");
+        first.eraseCredentials();
+
+        assertEquals("hash", detailsService.loadUserByUsername("alice").getPassword());
+    }
+
+    @Test
+    void loadUserByUsername_unknownUserIsCachedAndThrows() {
+        when(accountService.findCredentials("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> detailsService.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> detailsService.loadUserByUsername("ghost"));
+
+        verify(accountService, times(1)).findCredentials("ghost");
+    }
+
+    @Test
+    void credentialsChanged_evictsCachedEntry() {
+        when(accountService.findCredentials("bob")).thenReturn(Optional.empty());
+        assertThrows(UsernameNotFoundException.class, () -> detailsService.loadUserByUsername("bob"));
+
+        // Account created after the failed login
+        AccountCredentials bob = credentials(2L, "bob", "hash");
+        when(accountService.findCredentials("bob")).thenReturn(Optional.of(bob));
+        detailsService.onCredentialsChanged(new AccountCredentialsChangedEvent("bob"));
+
+        assertEquals(2L, ((AccountPrincipal) detailsService.loadUserByUsername("bob")).getAccountId());
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        detailsService = new AccountDetailsService(accountService, 2, 2, 0);
+        AccountCredentials alice = credentials(1L, "alice", "hash");
+        when(accountService.findCredentials("alice")).thenReturn(Optional.of(alice));
+
+        detailsService.loadUserByUsername("alice");
+        detailsService.loadUserByUsername("alice");
+
+        verify(accountService, times(2)).findCredentials("alice");
+    }
+
+    @Test
+    void cacheIsBounded() {
+        for (String username : new String[]{"a", "b", "c"}) {
+            AccountCredentials account = credentials(username.charAt(0), username, "hash");
+            when(accountService.findCredentials(username)).thenReturn(Optional.of(account));
+            detailsService.loadUserByUsername(username);
+        }
+
+        assertEquals(2, detailsService.cacheSize());
+    }
+
+    @Test
+    void unknownUsernamesDoNotEvictCachedAccounts() {
+        AccountCredentials alice = credentials(1L, "alice", "hash");
+        when(accountService.findCredentials("alice")).thenReturn(Optional.of(alice));
+        when(accountService.findCredentials(startsWith("ghost"))).thenReturn(Optional.empty());
+        detailsService.loadUserByUsername("alice");
+
+        for (String username : new String[]{"ghost1", "ghost2", "ghost3"}) {
+            assertThrows(UsernameNotFoundException.class, () -> detailsService.loadUserByUsername(username));
+        }
+        detailsService.loadUserByUsername("alice");
+
+        assertEquals(1, detailsService.cacheSize());
+        assertEquals(2, detailsService.missingCacheSize());
+        verify(accountService, times(1)).findCredentials("alice");
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.perkmanager.security;
+
+import com.example.perkmanager.metrics.StageTimers;
+import com.example.perkmanager.services.AccountService;
+import com.example.perkmanager.services.CurrentAccount;
+import com.example.perkmanager.utils.LongHashSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CurrentAccountArgumentResolverTest {
+
+    private AccountService accountService;
+    private CurrentAccountArgumentResolver resolver;
+    private MockHttpServletRequest request;
+    private NativeWebRequest webRequest;
+
+    @BeforeEach
+    void setUp() {
+        accountService = mock(AccountService.class);
+        resolver = new CurrentAccountArgumentResolver(accountService, new StageTimers(new SimpleMeterRegistry()));
+        request = new MockHttpServletRequest("GET", "/perks");
+        webRequest = new ServletWebRequest(request);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @SuppressWarnings("unused")
+    private void handler(CurrentAccount account, String other) {}
+
+    private static MethodParameter parameter(int index) throws NoSuchMethodException {
+        return new MethodParameter(CurrentAccountArgumentResolverTest.class
+                .getDeclaredMethod("handler", CurrentAccount.class, String.class), index);
+    }
+
+    private static void logIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    @Test
+    void supportsOnlyCurrentAccountParameters() throws Exception {
+        assertTrue(resolver.supportsParameter(parameter(0)));
+        assertFalse(resolver.supportsParameter(parameter(1)));
+    }
+
+    @Test
+    void resolvesAccountOncePerRequest() throws Exception {
+        CurrentAccount account = new CurrentAccount(5L, "bob", LongHashSet.of(1L), LongHashSet.of(2L));
+        when(accountService.findCurrentAccount("bob")).thenReturn(Optional.of(account));
+        logIn("bob");
+
+        assertSame(account, resolver.resolveArgument(parameter(0), null, webRequest, null));
+        assertSame(account, resolver.resolveArgument(parameter(0), null, webRequest, null));
+
+        verify(accountService, times(1)).findCurrentAccount("bob");
+        assertSame(account, request.getAttribute(CurrentAccountArgumentResolver.ATTRIBUTE));
+    }
+
+    @Test
+    void guestsResolveToNull() throws Exception {
+        assertNull(resolver.resolveArgument(parameter(0), null, webRequest, null));
+
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+                "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        assertNull(resolver.resolveArgument(parameter(0), null, webRequest, null));
+
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void unknownAccountResolvesToNull() throws Exception {
+        when(accountService.findCurrentAccount("ghost")).thenReturn(Optional.empty());
+        logIn("ghost");
+
+        assertNull(resolver.resolveArgument(parameter(0), null, webRequest, null));
+        assertNull(request.getAttribute(CurrentAccountArgumentResolver.ATTRIBUTE));
+    }
+}
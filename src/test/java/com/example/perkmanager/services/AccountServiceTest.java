@@ -3,12 +3,16 @@ package com.example.perkmanager.services;
 import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repositories.AccountLink;
 import com.example.perkmanager.repositories.AccountRepository;
+import com.example.perkmanager.utils.LongHashSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,12 +21,16 @@ import static org.mockito.Mockito.*;
 class AccountServiceTest {
 
     private AccountRepository accountRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private DataVersion dataVersion;
     private AccountService accountService;
 
     @BeforeEach
     void setUp() {
         accountRepository = mock(AccountRepository.class);
-        accountService = new AccountService(accountRepository, new BCryptPasswordEncoder());
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        dataVersion = mock(DataVersion.class);
+        accountService = new AccountService(accountRepository, new BCryptPasswordEncoder(), eventPublisher, dataVersion);
 
         when(accountRepository.save(any(Account.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -37,6 +45,20 @@ class AccountServiceTest {
 
         assertEquals("user1", account.getUsername());
         verify(accountRepository).save(account);
+        verify(eventPublisher).publishEvent(new AccountCredentialsChangedEvent("user1"));
+    }
+
+    @Test
+    void changePassword_shouldEncodeSaveAndPublishEvent() {
+        Account account = new Account();
+        account.setUsername("user1");
+        account.setPassword("old");
+
+        accountService.changePassword(account, "newPassword");
+
+        assertTrue(new BCryptPasswordEncoder().matches("newPassword", account.getPassword()));
+        verify(accountRepository).save(account);
+        verify(eventPublisher).publishEvent(new AccountCredentialsChangedEvent("user1"));
     }
 
     @Test
@@ -49,6 +71,53 @@ class AccountServiceTest {
                 .thenReturn(Optional.of(existing));
 
         assertThrows(IllegalArgumentException.class, () -> accountService.createAccount("user1", "pass"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private static AccountLink link(String type, Long linkedId) {
+        AccountLink link = mock(AccountLink.class);
+        when(link.getAccountId()).thenReturn(5L);
+        when(link.getUsername()).thenReturn("user1");
+        when(link.getLinkType()).thenReturn(type);
+        when(link.getLinkedId()).thenReturn(linkedId);
+        return link;
+    }
+
+    @Test
+    void findCurrentAccount_shouldCollectMembershipAndSavedPerkIds() {
+        List<AccountLink> links = List.of(
+                link(AccountLink.MEMBERSHIP, 1L),
+                link(AccountLink.MEMBERSHIP, 2L),
+                link(AccountLink.SAVED_PERK, 10L));
+        when(accountRepository.findLinksByUsername("user1")).thenReturn(links);
+
+        CurrentAccount account = accountService.findCurrentAccount("user1").orElseThrow();
+
+        assertEquals(5L, account.getId());
+        assertEquals("user1", account.getUsername());
+        assertEquals(LongHashSet.of(1L, 2L), account.getMembershipIds());
+        assertEquals(LongHashSet.of(10L), account.getSavedPerkIds());
+        assertTrue(account.hasSavedPerk(10L));
+        assertFalse(account.hasMembership(10L));
+        verify(accountRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    void findCurrentAccount_withNothingLinked_shouldHaveEmptySets() {
+        List<AccountLink> links = List.of(link(AccountLink.MEMBERSHIP, null));
+        when(accountRepository.findLinksByUsername("user1")).thenReturn(links);
+
+        CurrentAccount account = accountService.findCurrentAccount("user1").orElseThrow();
+
+        assertTrue(account.getMembershipIds().isEmpty());
+        assertTrue(account.getSavedPerkIds().isEmpty());
+    }
+
+    @Test
+    void findCurrentAccount_unknownUser_shouldBeEmpty() {
+        when(accountRepository.findLinksByUsername("ghost")).thenReturn(List.of());
+
+        assertTrue(accountService.findCurrentAccount("ghost").isEmpty());
     }
 
     @Test
@@ -97,5 +166,6 @@ class AccountServiceTest {
 
         accountService.removeMembership(account, membership);
         assertFalse(account.getMemberships().contains(membership));
+        verify(dataVersion, times(2)).bump();
     }
 }
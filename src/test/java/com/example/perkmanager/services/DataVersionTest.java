@@ -0,0 +1,66 @@
+package com.example.perkmanager.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataVersionTest {
+
+    private final DataVersion dataVersion = new DataVersion();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void newVersion_shouldStartAtStartupTime() {
+        long before = System.currentTimeMillis();
+
+        DataVersion started = new DataVersion();
+
+        assertTrue(started.current() >= before);
+        assertEquals(started.current(), started.lastModified());
+    }
+
+    @Test
+    void bump_shouldAdvanceVersion() {
+        long version = dataVersion.current();
+
+        dataVersion.bump();
+
+        assertEquals(version + 1, dataVersion.current());
+    }
+
+    @Test
+    void bump_insideTransaction_shouldWaitForCommit() {
+        long version = dataVersion.current();
+        TransactionSynchronizationManager.initSynchronization();
+
+        dataVersion.bump();
+
+        assertEquals(version, dataVersion.current());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+
+        synchronizations.get(0).afterCommit();
+
+        assertEquals(version + 1, dataVersion.current());
+    }
+
+    @Test
+    void onPerksExpired_shouldAdvanceVersion() {
+        long version = dataVersion.current();
+
+        dataVersion.onPerksExpired(new PerksExpiredEvent(List.of(1L, 2L)));
+
+        assertEquals(version + 1, dataVersion.current());
+    }
+}
@@ -21,7 +21,7 @@ class MembershipServiceTest {
     @BeforeEach
     void setUp() {
         membershipRepository = mock(MembershipRepository.class);
-        membershipService = new MembershipService(membershipRepository);
+        membershipService = new MembershipService(membershipRepository, mock(DataVersion.class));
     }
 
     @Test
@@ -68,4 +68,36 @@ class MembershipServiceTest {
         assertEquals("Visa", captor.getValue().getOrganizationName());
         assertEquals("Card", membership.getType());
     }
+
+    @Test
+    void getAllMembershipTypes_shouldBeSortedDistinctAndCached() {
+        Membership m1 = new Membership("Card", "Visa", "Visa Rewards");
+        Membership m2 = new Membership("AirMiles", "CAA", "CAA Rewards");
+        Membership m3 = new Membership("Card", "RBC", "RBC Avion");
+        when(membershipRepository.findAll()).thenReturn(Arrays.asList(m1, m2, m3));
+
+        assertEquals(List.of("AirMiles", "Card"), membershipService.getAllMembershipTypes());
+        assertEquals(List.of("AirMiles", "Card"), membershipService.getAllMembershipTypes());
+        assertEquals(3, membershipService.getAllMemberships().size());
+
+        verify(membershipRepository, times(1)).findAll();
+        MembershipService.CatalogStats stats = membershipService.getCatalogStats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void createMembership_shouldInvalidateCatalog() {
+        Membership m1 = new Membership("Card", "Visa", "Visa Rewards");
+        Membership m2 = new Membership("Club", "Costco", "Executive");
+        when(membershipRepository.findAll()).thenReturn(List.of(m1), List.of(m1, m2));
+        when(membershipRepository.save(any(Membership.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        assertEquals(List.of("Card"), membershipService.getAllMembershipTypes());
+        membershipService.createMembership("Club", "Costco", "Executive");
+
+        assertEquals(List.of("Card", "Club"), membershipService.getAllMembershipTypes());
+        verify(membershipRepository, times(2)).findAll();
+        assertEquals(2, membershipService.getCatalogStats().misses());
+    }
 }
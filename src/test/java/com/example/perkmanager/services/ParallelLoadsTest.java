@@ -0,0 +1,91 @@
+package com.example.perkmanager.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelLoadsTest {
+
+    private final ParallelLoads parallelLoads = new ParallelLoads(1, 1000);
+
+    @AfterEach
+    void tearDown() {
+        parallelLoads.shutdown();
+    }
+
+    @Test
+    void join_shouldReturnResultOfLoad() {
+        ParallelLoads.Load<String> load = parallelLoads.start("greeting", () -> "hello");
+
+        assertEquals("hello", load.join());
+    }
+
+    @Test
+    void start_shouldRunLoadWhileCallerWorks() throws InterruptedException {
+        CountDownLatch callerWorking = new CountDownLatch(1);
+        ParallelLoads.Load<Boolean> load = parallelLoads.start("waiting load", () -> {
+            try {
+                return callerWorking.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // A load run on the caller would have given up waiting before getting here
+        callerWorking.countDown();
+
+        assertTrue(load.join());
+    }
+
+    @Test
+    void start_whenPoolIsBusy_shouldRunLoadOnCaller() {
+        CountDownLatch release = new CountDownLatch(1);
+        ParallelLoads.Load<Boolean> busy = parallelLoads.start("busy", () -> {
+            try {
+                return release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread caller = Thread.currentThread();
+
+        ParallelLoads.Load<Thread> load = parallelLoads.start("second", Thread::currentThread);
+        release.countDown();
+
+        assertSame(caller, load.join());
+        assertTrue(busy.join());
+    }
+
+    @Test
+    void join_whenLoadThrows_shouldRethrowException() {
+        ParallelLoads.Load<String> load = parallelLoads.start("failing", () -> {
+            throw new IllegalArgumentException("no such perk");
+        });
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, load::join);
+        assertEquals("no such perk", e.getMessage());
+    }
+
+    @Test
+    void join_afterTimeout_shouldCancelLoad() {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ParallelLoads.Load<String> load = parallelLoads.start("slow", Duration.ofMillis(20), () -> {
+            try {
+                Thread.sleep(5000);
+                return "late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                return null;
+            }
+        });
+
+        ParallelLoads.LoadTimeoutException e = assertThrows(ParallelLoads.LoadTimeoutException.class, load::join);
+        assertEquals("Loading slow took longer than 20 ms", e.getMessage());
+        assertDoesNotThrow(() -> assertTrue(interrupted.await(1, TimeUnit.SECONDS)));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repositories.PerkExpiry;
+import com.example.perkmanager.repositories.PerkRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PerkExpiryServiceTest {
+
+    private PerkRepository perkRepository;
+    private NamedParameterJdbcTemplate jdbc;
+    private TaskScheduler taskScheduler;
+    private ApplicationEventPublisher eventPublisher;
+    private PerkExpiryService expiryService;
+
+    @BeforeEach
+    void setUp() {
+        perkRepository = mock(PerkRepository.class);
+        jdbc = mock(NamedParameterJdbcTemplate.class);
+        taskScheduler = mock(TaskScheduler.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        doReturn(mock(ScheduledFuture.class)).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        expiryService = new PerkExpiryService(perkRepository, jdbc, taskScheduler, eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Calendar minutesFromNow(int minutes) {
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.MINUTE, minutes);
+        return cal;
+    }
+
+    private static PerkExpiry expiry(long id, Calendar date) {
+        PerkExpiry expiry = mock(PerkExpiry.class);
+        when(expiry.getId()).thenReturn(id);
+        when(expiry.getExpiryDate()).thenReturn(date);
+        return expiry;
+    }
+
+    private static Perk perk(long id, Calendar expiryDate) {
+        Perk perk = new Perk();
+        perk.setId(id);
+        perk.setExpiryDate(expiryDate);
+        return perk;
+    }
+
+    @Test
+    void start_shouldScheduleEarliestExpiry() {
+        Calendar soon = minutesFromNow(5);
+        List<PerkExpiry> pending = List.of(expiry(1L, minutesFromNow(60)), expiry(2L, soon));
+        when(perkRepository.findPendingExpiries()).thenReturn(pending);
+
+        expiryService.start();
+
+        assertEquals(2, expiryService.pendingCount());
+        verify(taskScheduler).schedule(any(Runnable.class), eq(Instant.ofEpochMilli(soon.getTimeInMillis())));
+    }
+
+    @Test
+    void expireDue_shouldMarkDuePerksAndPublishEvent() {
+        List<PerkExpiry> pending = List.of(
+                expiry(1L, minutesFromNow(-10)),
+                expiry(2L, minutesFromNow(-1)),
+                expiry(3L, minutesFromNow(60)));
+        when(perkRepository.findPendingExpiries()).thenReturn(pending);
+        expiryService.start();
+
+        expiryService.expireDue();
+
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbc).update(startsWith("UPDATE perks SET expired = TRUE"), params.capture());
+        assertEquals(List.of(1L, 2L), params.getValue().getValue("ids"));
+        verify(eventPublisher).publishEvent(new PerksExpiredEvent(List.of(1L, 2L)));
+        assertEquals(1, expiryService.pendingCount());
+    }
+
+    @Test
+    void expireDue_shouldWriteInBatches() {
+        List<PerkExpiry> pending = new ArrayList<>();
+        for (long id = 1; id <= PerkExpiryService.BATCH_SIZE + 1; id++) {
+            pending.add(expiry(id, minutesFromNow(-1)));
+        }
+        when(perkRepository.findPendingExpiries()).thenReturn(pending);
+        expiryService.start();
+
+        expiryService.expireDue();
+
+        verify(jdbc, times(2)).update(anyString(), any(MapSqlParameterSource.class));
+        ArgumentCaptor<PerksExpiredEvent> event = ArgumentCaptor.forClass(PerksExpiredEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(PerkExpiryService.BATCH_SIZE + 1, event.getValue().perkIds().size());
+    }
+
+    @Test
+    void expireDue_whenWriteFails_shouldKeepPerksForRetry() {
+        List<PerkExpiry> pending = List.of(expiry(1L, minutesFromNow(-1)));
+        when(perkRepository.findPendingExpiries()).thenReturn(pending);
+        when(jdbc.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        expiryService.start();
+
+        expiryService.expireDue();
+
+        assertEquals(1, expiryService.pendingCount());
+        verifyNoInteractions(eventPublisher);
+        // Once for startup, once for the retry
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void register_shouldScheduleEarlierPerkAndIgnorePerksWithoutExpiry() {
+        when(perkRepository.findPendingExpiries()).thenReturn(List.of());
+        expiryService.start();
+        Calendar soon = minutesFromNow(1);
+
+        expiryService.register(perk(1L, null));
+        expiryService.register(perk(2L, soon));
+
+        assertEquals(1, expiryService.pendingCount());
+        verify(taskScheduler).schedule(any(Runnable.class), eq(Instant.ofEpochMilli(soon.getTimeInMillis())));
+    }
+
+    @Test
+    void register_insideTransaction_shouldWaitForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        expiryService.register(perk(1L, minutesFromNow(30)));
+
+        assertEquals(0, expiryService.pendingCount());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+
+        synchronizations.get(0).afterCommit();
+
+        assertEquals(1, expiryService.pendingCount());
+    }
+}
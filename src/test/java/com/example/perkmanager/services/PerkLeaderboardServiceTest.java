@@ -0,0 +1,133 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.model.Account;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repositories.PerkRanking;
+import com.example.perkmanager.repositories.PerkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerkLeaderboardServiceTest {
+
+    private PerkRepository perkRepository;
+    private PerkLeaderboardService leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        perkRepository = mock(PerkRepository.class);
+        leaderboard = new PerkLeaderboardService(perkRepository);
+    }
+
+    private static PerkRanking ranking(long id, int score, Calendar expiry) {
+        return ranking(id, score, expiry, false);
+    }
+
+    private static PerkRanking ranking(long id, int score, Calendar expiry, boolean expired) {
+        PerkRanking ranking = mock(PerkRanking.class);
+        when(ranking.getId()).thenReturn(id);
+        when(ranking.getScore()).thenReturn(score);
+        when(ranking.getExpiryDate()).thenReturn(expiry);
+        when(ranking.isExpired()).thenReturn(expired);
+        return ranking;
+    }
+
+    private static Calendar daysFromNow(int days) {
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DAY_OF_YEAR, days);
+        return cal;
+    }
+
+    @Test
+    void rebuild_shouldOrderTopRatedByScoreThenExpiry() {
+        List<PerkRanking> rankings = List.of(
+                ranking(1L, 2, null),
+                ranking(2L, 5, daysFromNow(3)),
+                ranking(3L, 2, daysFromNow(1)),
+                ranking(4L, -1, daysFromNow(-1)));
+        when(perkRepository.findAllRankings()).thenReturn(rankings);
+
+        leaderboard.rebuild();
+
+        assertEquals(List.of(2L, 3L, 1L, 4L), leaderboard.topRated(0, 4));
+        assertEquals(List.of(1L, 4L), leaderboard.topRated(1, 2));
+        assertEquals(4, leaderboard.topRatedCount());
+    }
+
+    @Test
+    void expiringSoon_shouldSkipExpiredAndPerksWithoutExpiry() {
+        Calendar inThreeDays = daysFromNow(3);
+        List<PerkRanking> rankings = List.of(
+                ranking(1L, 0, null),
+                ranking(2L, 0, inThreeDays),
+                ranking(3L, 1, inThreeDays),
+                ranking(4L, 9, daysFromNow(-1), true),
+                ranking(5L, 0, daysFromNow(1)));
+        when(perkRepository.findAllRankings()).thenReturn(rankings);
+        leaderboard.rebuild();
+
+        // Same expiry: higher score first
+        assertEquals(List.of(5L, 3L, 2L), leaderboard.expiringSoon(0, 4));
+        assertEquals(3, leaderboard.expiringCount());
+        // Expired perks stay on the top-rated leaderboard
+        assertEquals(4L, leaderboard.topRated(0, 1).get(0));
+    }
+
+    @Test
+    void onPerksExpired_shouldDropPerksFromExpiringOnly() {
+        List<PerkRanking> rankings = List.of(
+                ranking(1L, 4, daysFromNow(1)),
+                ranking(2L, 2, daysFromNow(2)),
+                ranking(3L, 0, null));
+        when(perkRepository.findAllRankings()).thenReturn(rankings);
+        leaderboard.rebuild();
+
+        leaderboard.onPerksExpired(new PerksExpiredEvent(List.of(1L, 99L)));
+
+        assertEquals(List.of(2L), leaderboard.expiringSoon(0, 4));
+        assertEquals(1, leaderboard.expiringCount());
+        assertEquals(List.of(1L, 2L, 3L), leaderboard.topRated(0, 4));
+
+        // A later vote keeps the perk off the expiring leaderboard
+        leaderboard.adjustScore(1L, 1);
+
+        assertEquals(List.of(2L), leaderboard.expiringSoon(0, 4));
+    }
+
+    @Test
+    void adjustScore_shouldMovePerkInTopRated() {
+        List<PerkRanking> rankings = List.of(
+                ranking(1L, 3, null),
+                ranking(2L, 1, null));
+        when(perkRepository.findAllRankings()).thenReturn(rankings);
+        leaderboard.rebuild();
+
+        leaderboard.adjustScore(2L, 5);
+        leaderboard.adjustScore(99L, 5);
+
+        assertEquals(List.of(2L, 1L), leaderboard.topRated(0, 4));
+        assertEquals(2, leaderboard.topRatedCount());
+    }
+
+    @Test
+    void update_shouldAddNewPerk() {
+        List<PerkRanking> rankings = List.of(ranking(1L, 0, null));
+        when(perkRepository.findAllRankings()).thenReturn(rankings);
+        leaderboard.rebuild();
+
+        Perk perk = new Perk();
+        perk.setId(2L);
+        perk.setExpiryDate(daysFromNow(2));
+        perk.addUpvote(new Account());
+
+        leaderboard.update(perk);
+
+        assertEquals(List.of(2L, 1L), leaderboard.topRated(0, 4));
+        assertEquals(List.of(2L), leaderboard.expiringSoon(0, 4));
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.model.Membership;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.model.Product;
+import com.example.perkmanager.repositories.PerkRepository;
+import com.example.perkmanager.repositories.PerkSearchFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PerkSearchIndexTest {
+
+    private PerkRepository perkRepository;
+    private PerkSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        perkRepository = mock(PerkRepository.class);
+        index = new PerkSearchIndex(perkRepository, "memory");
+    }
+
+    private static PerkSearchFields fields(long id, String benefit, String region, String product,
+                                           String company, String type, String organization) {
+        PerkSearchFields fields = mock(PerkSearchFields.class);
+        when(fields.getId()).thenReturn(id);
+        when(fields.getBenefit()).thenReturn(benefit);
+        when(fields.getRegion()).thenReturn(region);
+        when(fields.getProductName()).thenReturn(product);
+        when(fields.getCompany()).thenReturn(company);
+        when(fields.getMembershipType()).thenReturn(type);
+        when(fields.getOrganizationName()).thenReturn(organization);
+        return fields;
+    }
+
+    private long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    void rebuild_shouldIndexEveryFieldAndMatchAllWords() {
+        List<PerkSearchFields> perks = List.of(
+                fields(1L, "10% off gas", "Ontario", "Gas", "Costco", "Wholesale Club", "Costco"),
+                fields(2L, "Free checked bag", "Canada", "Flight", "Air Canada", "Frequent Flyer", "Aeroplan"),
+                fields(3L, "5% off groceries", null, "KitKat", "Nestlé", "Credit Card", "Visa"));
+        when(perkRepository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(perks);
+
+        index.rebuild();
+
+        assertEquals(3, index.size());
+        assertArrayEquals(new long[]{1L}, index.search("COSTCO"));
+        assertArrayEquals(new long[]{1L, 3L}, sorted(index.search("off")));
+        assertArrayEquals(new long[]{3L}, index.search("off nestle"));
+        assertArrayEquals(new long[]{2L}, index.search("air-canada, frequent"));
+        assertArrayEquals(new long[]{3L}, index.search("credit card"));
+        assertEquals(0, index.search("costco canada").length);
+        assertEquals(0, index.search("unknown").length);
+        assertEquals(0, index.search("  ").length);
+    }
+
+    @Test
+    void rebuild_shouldLoadPerksInBatches() {
+        List<PerkSearchFields> first = new ArrayList<>();
+        for (long id = 1; id <= PerkSearchIndex.BATCH_SIZE; id++) {
+            first.add(fields(id, "Benefit " + id, null, null, null, "Card", "Org"));
+        }
+        List<PerkSearchFields> second = List.of(fields(20_000L, "Last benefit", null, null, null, "Card", "Org"));
+        when(perkRepository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(first);
+        when(perkRepository.findSearchFieldsAfter(eq((long) PerkSearchIndex.BATCH_SIZE), any(Limit.class)))
+                .thenReturn(second);
+
+        index.rebuild();
+
+        assertEquals(PerkSearchIndex.BATCH_SIZE + 1, index.size());
+        assertArrayEquals(new long[]{20_000L}, index.search("last"));
+        assertEquals(PerkSearchIndex.BATCH_SIZE + 1, index.search("card org").length);
+    }
+
+    @Test
+    void add_shouldMakeNewPerkSearchable() {
+        List<PerkSearchFields> perks = List.of(
+                fields(1L, "Popcorn deal", null, "Movie", "Cineplex", "Entertainment", "Scene+"));
+        when(perkRepository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(perks);
+        index.rebuild();
+
+        Perk perk = new Perk(new Membership("Entertainment", "Cineplex", "Scene+"),
+                new Product("Movie ticket", "Cineplex"), "Free popcorn");
+        perk.setId(7L);
+        index.add(perk);
+
+        assertArrayEquals(new long[]{1L, 7L}, sorted(index.search("popcorn cineplex")));
+        assertArrayEquals(new long[]{7L}, index.search("free popcorn"));
+    }
+
+    @Test
+    void search_shouldMatchRegionSubstringIgnoringCase() {
+        List<PerkSearchFields> perks = List.of(
+                fields(1L, "10% off gas", "Canada", "Gas", "Costco", "Club", "Costco"),
+                fields(2L, "Free bag", "Eastern CANADA", "Flight", "Air Canada", "Airline", "Aeroplan"),
+                fields(3L, "Free coffee", "Panama", "Coffee", "Tim Hortons", "Club", "Costco"),
+                fields(4L, "Popcorn", null, "Movie", "Cineplex", "Club", "Scene+"));
+        when(perkRepository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(perks);
+
+        index.rebuild();
+
+        assertArrayEquals(new long[]{1L, 2L}, sorted(index.search(null, "anada")));
+        assertArrayEquals(new long[]{1L, 2L, 3L}, sorted(index.search(null, "ana")));
+        assertArrayEquals(new long[]{1L, 2L, 3L}, sorted(index.search("", "AN")));
+        assertEquals(0, index.search(null, "an ada").length);
+        assertEquals(0, index.search(null, "nadac").length);
+        assertArrayEquals(new long[]{1L}, index.search("costco", "anada"));
+        assertArrayEquals(new long[]{3L}, index.search("coffee", "a"));
+    }
+
+    @Test
+    void search_shouldVerifyRegionCandidatesSharingEveryTrigram() {
+        index.add(1L, "xabcdx", "first");
+        index.add(2L, "abcbcd", "second");
+
+        // Both regions have the trigrams "abc" and "bcd", but only the first contains "abcd"
+        assertArrayEquals(new long[]{1L}, index.search(null, "abcd"));
+        assertArrayEquals(new long[]{1L, 2L}, sorted(index.search(null, "bcd")));
+    }
+
+    @Test
+    void trigrams_shouldReturnDistinctSubstringsOfThree() {
+        assertEquals(List.of("can", "ana", "nad", "ada"), List.copyOf(PerkSearchIndex.trigrams("canada")));
+        assertEquals(List.of("aaa"), List.copyOf(PerkSearchIndex.trigrams("aaaaa")));
+        assertTrue(PerkSearchIndex.trigrams("ab").isEmpty());
+    }
+
+    @Test
+    void disabledIndex_shouldNotLoadOrIndexAnything() {
+        PerkSearchIndex disabled = new PerkSearchIndex(perkRepository, "database");
+        Perk perk = new Perk(new Membership("Card", "Visa", "Visa"), new Product("Gas", "Costco"), "Cheap gas");
+        perk.setId(1L);
+
+        disabled.rebuild();
+        disabled.add(perk);
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(0, disabled.size());
+        verifyNoInteractions(perkRepository);
+    }
+
+    @Test
+    void intersect_shouldKeepCommonValuesInOrder() {
+        int[] a = {1, 4, 9, 16, 25, 36, 49};
+        int[] b = new int[100];
+        for (int i = 0; i < b.length; i++) b[i] = i * 3;
+
+        int kept = PerkSearchIndex.intersect(a, a.length, b, b.length);
+
+        assertArrayEquals(new int[]{9, 36}, Arrays.copyOf(a, kept));
+    }
+
+    @Test
+    void gallop_shouldFindFirstValueAtLeastKey() {
+        int[] b = {2, 4, 6, 8, 10, 12, 14, 16, 18};
+
+        assertEquals(0, PerkSearchIndex.gallop(b, 0, b.length, 1));
+        assertEquals(3, PerkSearchIndex.gallop(b, 0, b.length, 8));
+        assertEquals(4, PerkSearchIndex.gallop(b, 2, b.length, 9));
+        assertEquals(8, PerkSearchIndex.gallop(b, 0, b.length, 18));
+        assertEquals(b.length, PerkSearchIndex.gallop(b, 0, b.length, 19));
+        assertEquals(5, PerkSearchIndex.gallop(b, 5, b.length, 3));
+    }
+}
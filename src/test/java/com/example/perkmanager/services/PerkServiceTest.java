@@ -4,10 +4,17 @@ import com.example.perkmanager.model.Account;
 import com.example.perkmanager.model.Membership;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.Product;
+import com.example.perkmanager.repositories.PerkAccountState;
 import com.example.perkmanager.repositories.PerkRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.util.*;
 
@@ -17,12 +24,23 @@ import static org.mockito.Mockito.*;
 class PerkServiceTest {
 
     private PerkRepository perkRepository;
+    private VoteBuffer voteBuffer;
+    private PerkLeaderboardService leaderboardService;
+    private PerkSearchIndex searchIndex;
+    private PerkExpiryService expiryService;
+    private DataVersion dataVersion;
     private PerkService perkService;
 
     @BeforeEach
     void setUp() {
         perkRepository = mock(PerkRepository.class);
-        perkService = new PerkService(perkRepository);
+        voteBuffer = mock(VoteBuffer.class);
+        leaderboardService = mock(PerkLeaderboardService.class);
+        searchIndex = mock(PerkSearchIndex.class);
+        expiryService = mock(PerkExpiryService.class);
+        dataVersion = mock(DataVersion.class);
+        perkService = new PerkService(perkRepository, voteBuffer, leaderboardService, searchIndex, expiryService,
+                dataVersion);
     }
 
     @Test
@@ -40,6 +58,22 @@ class PerkServiceTest {
         assertEquals("10% off", captor.getValue().getBenefit());
         assertTrue(account.getPerks().contains(perk));
         assertEquals("Toronto", perk.getRegion());
+        verify(leaderboardService).update(perk);
+        verify(searchIndex).add(perk);
+        verify(expiryService).register(perk);
+    }
+
+    @Test
+    void findAllByIdInOrder_shouldKeepIdOrderAndSkipMissing() {
+        Perk first = new Perk();
+        first.setId(1L);
+        Perk third = new Perk();
+        third.setId(3L);
+        when(perkRepository.findAllById(List.of(3L, 2L, 1L))).thenReturn(List.of(first, third));
+
+        List<Perk> result = perkService.findAllByIdInOrder(List.of(3L, 2L, 1L));
+
+        assertEquals(List.of(third, first), result);
     }
 
     @Test
@@ -65,138 +99,316 @@ class PerkServiceTest {
     }
 
     @Test
-    void toggleUpvotePerk_shouldAddUpvoteAndRemoveDownvote() {
-        Account user = new Account();
-        Perk perk = new Perk();
-        perk.getDownvotedBy().add(user);
-
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
+    void getAccountStates_shouldUseOneQueryAndApplyPendingVotes() {
+        Perk saved = new Perk();
+        saved.setId(1L);
+        Perk voted = new Perk();
+        voted.setId(2L);
+        PerkAccountState savedState = mock(PerkAccountState.class);
+        when(savedState.getPerkId()).thenReturn(1L);
+        when(savedState.getVoteState()).thenReturn(0);
+        when(savedState.getSaveState()).thenReturn(1);
+        PerkAccountState votedState = mock(PerkAccountState.class);
+        when(votedState.getPerkId()).thenReturn(2L);
+        when(votedState.getVoteState()).thenReturn(1);
+        when(votedState.getSaveState()).thenReturn(0);
+
+        when(perkRepository.findAccountStates(7L, List.of(1L, 2L))).thenReturn(List.of(savedState, votedState));
+        when(voteBuffer.currentVoteState(anyLong(), anyLong(), anyInt())).thenAnswer(i -> i.getArgument(2));
+        when(voteBuffer.currentVoteState(2L, 7L, 1)).thenReturn(-1);
+
+        PerkAccountStates states = perkService.getAccountStates(7L, List.of(saved, voted));
+
+        assertEquals(1, states.saveState(1L));
+        assertEquals(0, states.voteState(1L));
+        assertEquals(0, states.saveState(2L));
+        assertEquals(-1, states.voteState(2L));
+        verify(perkRepository, times(1)).findAccountStates(anyLong(), any());
+    }
 
-        perkService.toggleUpvotePerk(1L, user);
+    @Test
+    void getAccountStates_emptyPage_shouldNotQuery() {
+        PerkAccountStates states = perkService.getAccountStates(7L, List.of());
 
-        assertTrue(perk.getUpvotedBy().contains(user));
-        assertFalse(perk.getDownvotedBy().contains(user));
-        verify(perkRepository).save(perk);
+        assertEquals(0, states.voteState(1L));
+        verifyNoInteractions(perkRepository);
     }
 
     @Test
-    void toggleDownvotePerk_shouldAddDownvoteAndRemoveUpvote() {
-        Account user = new Account();
-        Perk perk = new Perk();
-        perk.getUpvotedBy().add(user);
+    void toggleUpvotePerk_shouldRecordToggleInVoteBuffer() {
+        perkService.toggleUpvotePerk(1L, 7L);
 
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
+        verify(voteBuffer).toggleUpvote(1L, 7L);
+        verify(dataVersion).bump();
+        verifyNoInteractions(perkRepository);
+    }
 
-        perkService.toggleDownvotePerk(1L, user);
+    @Test
+    void toggleDownvotePerk_shouldRecordToggleInVoteBuffer() {
+        perkService.toggleDownvotePerk(1L, 7L);
 
-        assertTrue(perk.getDownvotedBy().contains(user));
-        assertFalse(perk.getUpvotedBy().contains(user));
-        verify(perkRepository).save(perk);
+        verify(voteBuffer).toggleDownvote(1L, 7L);
+        verifyNoInteractions(perkRepository);
     }
 
     @Test
-    void filterPerks_shouldFilterByMembershipAndRegion() {
+    void filterPerks_shouldQueryRepositoryWithSpecification() {
         Membership m1 = new Membership("Card", "Visa", "Visa Rewards");
-        Membership m2 = new Membership("AirMiles", "CAA", "CAA Rewards");
         Perk p1 = new Perk(m1, new Product("Movie", "Cinema"), "10% off");
         p1.setRegion("Toronto");
-        Perk p2 = new Perk(m2, new Product("Flight", "WestJet"), "Free flight");
-        p2.setRegion("Vancouver");
 
-        when(perkRepository.findAll()).thenReturn(Arrays.asList(p1, p2));
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(p1)));
 
-        List<Perk> filtered = perkService.filterPerks(
+        Page<Perk> filtered = perkService.filterPerks(
                 Optional.of("Card"),
                 Optional.of("Toronto"),
                 Optional.empty(),
-                Optional.empty()
+                Optional.empty(),
+                Optional.empty(),
+                Pageable.unpaged()
         );
 
-        assertEquals(1, filtered.size());
-        assertEquals("10% off", filtered.get(0).getBenefit());
+        assertEquals(1, filtered.getTotalElements());
+        assertEquals("10% off", filtered.getContent().get(0).getBenefit());
+        verify(perkRepository).findAll(any(Specification.class), any(Pageable.class));
+        verify(perkRepository, never()).findAll();
     }
 
     @Test
-    void filterPerks_shouldFilterByExpiryOnlyAndUserMemberships() {
+    void filterPerks_withExpiryOnlyAndUserMemberships_shouldNotLoadWholeTable() {
         Membership m1 = new Membership("Card", "Visa", "Visa Rewards");
-        Membership m2 = new Membership("AirMiles", "CAA", "CAA Rewards");
+        m1.setId(1L);
 
         Calendar future = Calendar.getInstance();
         future.add(Calendar.DATE, 10);
-        Calendar past = Calendar.getInstance();
-        past.add(Calendar.DATE, -10);
-
         Perk activePerk = new Perk(m1, new Product("Movie", "Cinema"), "10% off");
         activePerk.setExpiryDate(future);
 
-        Perk expiredPerk = new Perk(m2, new Product("Flight", "WestJet"), "Expired");
-        expiredPerk.setExpiryDate(past);
-
-        when(perkRepository.findAll()).thenReturn(Arrays.asList(activePerk, expiredPerk));
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(activePerk)));
 
-        Set<Membership> userMemberships = new HashSet<>(Collections.singletonList(m1));
-        List<Perk> filtered = perkService.filterPerks(
+        Page<Perk> filtered = perkService.filterPerks(
                 Optional.empty(),
                 Optional.empty(),
                 Optional.of(true),
-                Optional.of(userMemberships)
+                Optional.of(Set.of(1L)),
+                Optional.empty(),
+                Pageable.unpaged()
         );
 
-        assertEquals(1, filtered.size());
-        assertEquals("10% off", filtered.get(0).getBenefit());
+        assertEquals(1, filtered.getTotalElements());
+        assertEquals("10% off", filtered.getContent().get(0).getBenefit());
+        verify(perkRepository, never()).findAll();
     }
 
 
     @Test
-    void sortPerks_shouldSortByRatingAscendingAndDescending() {
-        Perk low = new Perk();
-        Account a1 = new Account(); a1.setUsername("a1"); a1.setPassword("p");
-        Account a2 = new Account(); a2.setUsername("a2"); a2.setPassword("p");
-        Account a3 = new Account(); a3.setUsername("a3"); a3.setPassword("p");
-        Account a4 = new Account(); a4.setUsername("a4"); a4.setPassword("p");
-        Account a5 = new Account(); a5.setUsername("a5"); a5.setPassword("p");
+    void filterPerks_shouldPassPageRequestToRepository() {
+        Perk perk = new Perk();
+        Pageable pageable = perkService.pageRequest(2, 10, Optional.of("rating"), Optional.of("desc"));
+        when(perkRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(perk), pageable, 21));
+
+        Page<Perk> page = perkService.filterPerks(
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), pageable);
+
+        assertEquals(List.of(perk), page.getContent());
+        assertEquals(21, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        verify(perkRepository, never()).findAll();
+    }
+
+    @Test
+    void filterPerks_withSearchAndNoSort_shouldKeepPageUnsortedForRelevanceOrder() {
+        Pageable pageable = perkService.pageRequest(0, 5, Optional.of("relevance"), Optional.empty());
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+        perkService.filterPerks(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of("  costco  "), pageable);
+
+        verify(perkRepository).findAll(any(Specification.class), eq(PageRequest.of(0, 5)));
+    }
+
+    @Test
+    void filterPerks_withSearchIndex_shouldFilterByIndexMatchesAndSortByRating() {
+        when(searchIndex.isEnabled()).thenReturn(true);
+        when(searchIndex.search("costco", null)).thenReturn(new long[]{4L, 9L});
+        Pageable pageable = perkService.pageRequest(0, 5, Optional.of("relevance"), Optional.empty());
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        perkService.filterPerks(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of("costco"), pageable);
+
+        verify(perkRepository).findAll(any(Specification.class),
+                eq(PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "score", "id"))));
+    }
 
-        low.getUpvotedBy().add(a1);
-        low.getDownvotedBy().add(a2); // rating = 0
+    @Test
+    void filterPerks_withSearchIndexAndNoMatches_shouldNotQueryDatabase() {
+        when(searchIndex.isEnabled()).thenReturn(true);
+        when(searchIndex.search("nothing", null)).thenReturn(new long[0]);
+        Pageable pageable = perkService.pageRequest(0, 5, Optional.empty(), Optional.empty());
 
-        Perk high = new Perk();
-        high.getUpvotedBy().add(a3);
-        high.getUpvotedBy().add(a4); // rating = 2
+        Page<Perk> page = perkService.filterPerks(Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of("nothing"), pageable);
 
-        Perk mid = new Perk();
-        mid.getUpvotedBy().add(a5); // rating = 1
+        assertTrue(page.isEmpty());
+        assertEquals(0, page.getTotalElements());
+        verifyNoInteractions(perkRepository);
+    }
 
-        List<Perk> perks = Arrays.asList(low, high, mid);
+    @Test
+    void filterPerks_withSearchIndexAndRegionOnly_shouldFilterRegionInDatabase() {
+        when(searchIndex.isEnabled()).thenReturn(true);
+        Pageable pageable = perkService.pageRequest(0, 5, Optional.empty(), Optional.empty());
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
 
-        // Ascending
-        List<Perk> ascSorted = perkService.sortPerks(perks, Optional.of("rating"), Optional.of("asc"));
-        assertEquals(Arrays.asList(low, mid, high), ascSorted);
+        perkService.filterPerks(Optional.empty(), Optional.of("anada"), Optional.empty(), Optional.empty(),
+                Optional.empty(), pageable);
 
-        // Descending
-        List<Perk> descSorted = perkService.sortPerks(perks, Optional.of("rating"), Optional.of("desc"));
-        assertEquals(Arrays.asList(high, mid, low), descSorted);
+        verify(searchIndex, never()).search(anyString(), any());
+        verify(perkRepository).findAll(any(Specification.class), eq(PageRequest.of(0, 5, Sort.by("id"))));
     }
 
     @Test
-    void sortPerks_shouldSortByExpiryAscendingAndDescending() {
-        Calendar soon = Calendar.getInstance();
-        soon.add(Calendar.DATE, 1);
-        Calendar later = Calendar.getInstance();
-        later.add(Calendar.DATE, 10);
+    void filterPerks_withSearchIndexAndRegion_shouldFilterRegionInIndex() {
+        when(searchIndex.isEnabled()).thenReturn(true);
+        when(searchIndex.search("costco", "anada")).thenReturn(new long[]{2L});
+        Pageable pageable = perkService.pageRequest(0, 5, Optional.empty(), Optional.empty());
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
 
-        Perk p1 = new Perk();
-        p1.setExpiryDate(later);
-        Perk p2 = new Perk();
-        p2.setExpiryDate(soon);
+        perkService.filterPerks(Optional.empty(), Optional.of("anada"), Optional.empty(), Optional.empty(),
+                Optional.of("costco"), pageable);
 
-        List<Perk> perks = Arrays.asList(p1, p2);
+        verify(searchIndex).search("costco", "anada");
+    }
 
-        // Ascending (soonest first)
-        List<Perk> ascSorted = perkService.sortPerks(perks, Optional.of("expiry"), Optional.of("asc"));
-        assertEquals(p2, ascSorted.get(0));
+    @Test
+    void filterPerks_withBlankSearchAndNoSort_shouldSortById() {
+        Pageable pageable = perkService.pageRequest(1, 5, Optional.of("relevance"), Optional.empty());
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
 
-        // Descending (latest first)
-        List<Perk> descSorted = perkService.sortPerks(perks, Optional.of("expiry"), Optional.of("desc"));
-        assertEquals(p1, descSorted.get(0));
+        perkService.filterPerks(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of("   "), pageable);
+
+        verify(perkRepository).findAll(any(Specification.class), eq(PageRequest.of(1, 5, Sort.by("id"))));
+    }
+
+    @Test
+    void filterPerksAfter_shouldSeekPastCursorWithoutOffset() {
+        Perk perk = new Perk();
+        perk.setId(8L);
+        Pageable pageable = perkService.pageRequest(40, 5, Optional.of("rating"), Optional.of("desc"));
+        when(perkRepository.findFirst(any(Specification.class), any(Sort.class), anyInt())).thenReturn(List.of(perk));
+        when(perkRepository.count(any(Specification.class))).thenReturn(201L);
+
+        Page<Perk> page = perkService.filterPerksAfter(Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), pageable, new PerkCursor(12L, 9L));
+
+        assertEquals(List.of(perk), page.getContent());
+        assertEquals(40, page.getNumber());
+        assertEquals(201, page.getTotalElements());
+        verify(perkRepository).findFirst(any(Specification.class), eq(pageable.getSort()), eq(5));
+        verify(perkRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void filterPerksAfter_byExpiry_shouldContinueWithPerksWithoutExpiry() {
+        Perk dated = new Perk();
+        dated.setId(3L);
+        Perk undated = new Perk();
+        undated.setId(1L);
+        Pageable pageable = perkService.pageRequest(1, 2, Optional.of("expiry"), Optional.of("asc"));
+        when(perkRepository.findFirst(any(Specification.class), any(Sort.class), anyInt()))
+                .thenReturn(List.of(dated), List.of(undated));
+
+        Page<Perk> page = perkService.filterPerksAfter(Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), pageable, new PerkCursor(1_700_000_000_000L, 5L));
+
+        assertEquals(List.of(dated, undated), page.getContent());
+        verify(perkRepository).findFirst(any(Specification.class), eq(pageable.getSort()), eq(2));
+        verify(perkRepository).findFirst(any(Specification.class), eq(Sort.by("id")), eq(1));
+    }
+
+    @Test
+    void filterPerksAfter_withRelevanceOrder_shouldFallBackToOffset() {
+        Pageable pageable = perkService.pageRequest(2, 5, Optional.of("relevance"), Optional.empty());
+        when(perkRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        perkService.filterPerksAfter(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of("costco"), pageable, new PerkCursor(null, 9L));
+
+        verify(perkRepository).findAll(any(Specification.class), eq(PageRequest.of(2, 5)));
+        verify(perkRepository, never()).findFirst(any(), any(), anyInt());
+    }
+
+    @Test
+    void nextCursor_shouldPointAtLastPerkOfPage() {
+        Perk first = new Perk();
+        first.setId(4L);
+        Perk last = new Perk();
+        last.setId(2L);
+        Calendar expiry = Calendar.getInstance();
+        last.setExpiryDate(expiry);
+        Pageable byExpiry = perkService.pageRequest(0, 2, Optional.of("expiry"), Optional.of("desc"));
+        Pageable byRating = perkService.pageRequest(0, 2, Optional.of("rating"), Optional.empty());
+
+        assertEquals(Optional.of(new PerkCursor(expiry.getTimeInMillis(), 2L)),
+                perkService.nextCursor(new PageImpl<>(List.of(first, last), byExpiry, 10)));
+        assertEquals(Optional.of(new PerkCursor(0L, 2L)),
+                perkService.nextCursor(new PageImpl<>(List.of(first, last), byRating, 10)));
+        assertEquals(Optional.empty(),
+                perkService.nextCursor(new PageImpl<>(List.of(first, last), byRating, 2)));
+        assertEquals(Optional.empty(), perkService.nextCursor(
+                new PageImpl<>(List.of(first, last), perkService.pageRequest(0, 2, Optional.of("relevance"), Optional.empty()), 10)));
+    }
+
+    @Test
+    void perkCursor_shouldRoundTripAndRejectMalformedText() {
+        assertEquals(Optional.of(new PerkCursor(-3L, 17L)), PerkCursor.parse(new PerkCursor(-3L, 17L).toString()));
+        assertEquals(Optional.of(new PerkCursor(null, 17L)), PerkCursor.parse(":17"));
+        assertEquals(Optional.empty(), PerkCursor.parse(""));
+        assertEquals(Optional.empty(), PerkCursor.parse("17"));
+        assertEquals(Optional.empty(), PerkCursor.parse("a:b"));
+    }
+
+    @Test
+    void pageRequest_shouldUseOffsetAndSize() {
+        Pageable pageable = perkService.pageRequest(3, 5, Optional.empty(), Optional.empty());
+
+        assertEquals(15, pageable.getOffset());
+        assertEquals(5, pageable.getPageSize());
+    }
+
+    @Test
+    void sortFor_shouldSortByRatingAscendingAndDescending() {
+        assertEquals(Sort.by(Sort.Direction.ASC, "score").and(Sort.by("id")),
+                perkService.sortFor(Optional.of("rating"), Optional.of("asc")));
+        assertEquals(Sort.by(Sort.Direction.DESC, "score", "id"),
+                perkService.sortFor(Optional.of("rating"), Optional.of("desc")));
+    }
+
+    @Test
+    void sortFor_shouldSortByExpiryAscendingAndDescending() {
+        assertEquals(Sort.by(Sort.Direction.ASC, "expiryDate").and(Sort.by("id")),
+                perkService.sortFor(Optional.of("expiry"), Optional.empty()));
+        assertEquals(Sort.by(Sort.Direction.DESC, "expiryDate", "id"),
+                perkService.sortFor(Optional.of("expiry"), Optional.of("DESC")));
+    }
+
+    @Test
+    void sortFor_relevance_shouldLeaveOrderToSearch() {
+        assertTrue(perkService.sortFor(Optional.of("relevance"), Optional.of("desc")).isUnsorted());
+    }
+
+    @Test
+    void sortFor_unknownOrMissingKey_shouldSortById() {
+        assertEquals(Sort.by("id"), perkService.sortFor(Optional.empty(), Optional.of("desc")));
+        assertEquals(Sort.by("id"), perkService.sortFor(Optional.of("benefit"), Optional.of("desc")));
     }
 }
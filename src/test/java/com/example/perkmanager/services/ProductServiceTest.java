@@ -16,12 +16,14 @@ import static org.mockito.Mockito.*;
 class ProductServiceTest {
 
     private ProductRepository productRepository;
+    private DataVersion dataVersion;
     private ProductService productService;
 
     @BeforeEach
     void setUp() {
         productRepository = mock(ProductRepository.class);
-        productService = new ProductService(productRepository);
+        dataVersion = mock(DataVersion.class);
+        productService = new ProductService(productRepository, dataVersion);
     }
 
     @Test
@@ -67,5 +69,6 @@ class ProductServiceTest {
         verify(productRepository).save(captor.capture());
         assertEquals("Cinema", captor.getValue().getCompany());
         assertEquals("Blockbuster film", product.getDescription());
+        verify(dataVersion).bump();
     }
 }
@@ -0,0 +1,210 @@
+package com.example.perkmanager.services;
+
+import com.example.perkmanager.services.VoteBuffer.VoteTransition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VoteBufferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private NamedParameterJdbcTemplate jdbc;
+    private PerkLeaderboardService leaderboardService;
+    private DataVersion dataVersion;
+    private VoteBuffer voteBuffer;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(NamedParameterJdbcTemplate.class);
+        leaderboardService = mock(PerkLeaderboardService.class);
+        dataVersion = mock(DataVersion.class);
+        // Every row of a batch changes one row unless a test says otherwise
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenAnswer(invocation -> updateCounts(invocation.getArgument(1, SqlParameterSource[].class).length, 1));
+        voteBuffer = newBuffer();
+    }
+
+    private static int[] updateCounts(int rows, int count) {
+        int[] counts = new int[rows];
+        Arrays.fill(counts, count);
+        return counts;
+    }
+
+    private VoteBuffer newBuffer() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        return new VoteBuffer(jdbc, transactionTemplate, leaderboardService, dataVersion,
+                tempDir.resolve("votes.log").toString());
+    }
+
+    @Test
+    void transitions_shouldComposeLikeRepeatedToggles() {
+        VoteTransition up = VoteTransition.TOGGLE_UPVOTE;
+        VoteTransition down = VoteTransition.TOGGLE_DOWNVOTE;
+
+        // A downvote is cleared by the first upvote toggle and not restored by the second
+        assertEquals(new VoteTransition(0, 0, 1), up.then(up));
+        assertEquals(new VoteTransition(-1, -1, -1), up.then(down));
+        assertEquals(new VoteTransition(1, 1, 1), down.then(up));
+        assertEquals(1, up.then(down).then(up).apply(0));
+    }
+
+    @Test
+    void currentVoteState_shouldApplyPendingToggles() {
+        voteBuffer.toggleUpvote(1L, 7L);
+        voteBuffer.toggleUpvote(2L, 7L);
+        voteBuffer.toggleUpvote(2L, 7L);
+
+        assertEquals(1, voteBuffer.currentVoteState(1L, 7L, 0));
+        assertEquals(0, voteBuffer.currentVoteState(1L, 7L, 1));
+        assertEquals(1, voteBuffer.currentVoteState(2L, 7L, 1));
+        assertEquals(0, voteBuffer.currentVoteState(2L, 7L, -1));
+        assertEquals(0, voteBuffer.currentVoteState(3L, 7L, 0));
+        assertEquals(2, voteBuffer.pendingCount());
+    }
+
+    @Test
+    void flush_shouldInsertVoteAndUpdateCounters() {
+        voteBuffer.toggleDownvote(1L, 7L);
+
+        voteBuffer.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbc).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+        verify(jdbc, times(2)).batchUpdate(sql.capture(), any(SqlParameterSource[].class));
+        assertTrue(sql.getAllValues().get(0).startsWith("INSERT INTO perk_downvotes"));
+        assertTrue(sql.getAllValues().get(1).startsWith("UPDATE perks SET upvote_count"));
+        assertEquals(0, voteBuffer.pendingCount());
+        verify(leaderboardService).adjustScore(1L, -1);
+        verify(dataVersion).bump();
+    }
+
+    @Test
+    void flush_whenVoteInsertIsSkipped_shouldNotChangeCounters() {
+        // The perk was deleted before the flush, so the guarded insert changes no rows
+        when(jdbc.batchUpdate(startsWith("INSERT INTO perk_upvotes"), any(SqlParameterSource[].class)))
+                .thenReturn(new int[]{0});
+        voteBuffer.toggleUpvote(1L, 7L);
+
+        voteBuffer.flush();
+
+        verify(jdbc, never()).batchUpdate(startsWith("UPDATE perks"), any(SqlParameterSource[].class));
+        assertEquals(0, voteBuffer.pendingCount());
+        verifyNoInteractions(leaderboardService);
+        verify(dataVersion, never()).bump();
+    }
+
+    @Test
+    void flush_cancellingToggles_shouldWriteNothing() {
+        voteBuffer.toggleUpvote(1L, 7L);
+        voteBuffer.toggleUpvote(1L, 7L);
+
+        voteBuffer.flush();
+
+        verify(jdbc, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+        verify(dataVersion, never()).bump();
+    }
+
+    @Test
+    void flush_failure_shouldKeepVotesPending() {
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        voteBuffer.toggleUpvote(1L, 7L);
+
+        voteBuffer.flush();
+
+        assertEquals(1, voteBuffer.pendingCount());
+        assertEquals(1, voteBuffer.currentVoteState(1L, 7L, 0));
+        verifyNoInteractions(leaderboardService);
+    }
+
+    @Test
+    void flush_afterFailure_shouldWaitForBackoff() {
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        voteBuffer.toggleUpvote(1L, 7L);
+        voteBuffer.flush();
+
+        voteBuffer.flush();
+
+        verify(jdbc, times(1)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    void writePending_databaseDownRepeatedly_shouldKeepVotesPending() {
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        voteBuffer.toggleUpvote(1L, 7L);
+
+        for (int attempt = 0; attempt < VoteBuffer.MAX_ATTEMPTS * 10; attempt++) {
+            voteBuffer.writePending();
+        }
+
+        assertEquals(1, voteBuffer.pendingCount());
+        assertEquals(1, voteBuffer.currentVoteState(1L, 7L, 0));
+        assertFalse(Files.exists(tempDir.resolve("votes.log")));
+    }
+
+    @Test
+    void writePending_rejectedRepeatedly_shouldMoveOnlyRejectedVotesToJournal() throws Exception {
+        // Votes on perk 2 violate a constraint; votes on perk 1 are written
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(invocation -> {
+            SqlParameterSource[] rows = invocation.getArgument(1, SqlParameterSource[].class);
+            for (SqlParameterSource row : rows) {
+                if (Long.valueOf(2L).equals(row.getValue("perkId"))) {
+                    throw new DataIntegrityViolationException("rejected");
+                }
+            }
+            return updateCounts(rows.length, 1);
+        });
+        voteBuffer.toggleUpvote(1L, 7L);
+        voteBuffer.toggleUpvote(2L, 7L);
+
+        for (int attempt = 1; attempt < VoteBuffer.MAX_ATTEMPTS; attempt++) {
+            voteBuffer.writePending();
+            assertEquals(1, voteBuffer.pendingCount());
+        }
+        voteBuffer.writePending();
+
+        assertEquals(0, voteBuffer.pendingCount());
+        assertEquals(List.of("2,7,1:1:0"), Files.readAllLines(tempDir.resolve("votes.log")));
+        verify(leaderboardService).adjustScore(1L, 1);
+        verify(leaderboardService, never()).adjustScore(eq(2L), anyInt());
+    }
+
+    @Test
+    void shutdown_shouldJournalUnflushedVotesForReplay() throws Exception {
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        voteBuffer.toggleDownvote(1L, 7L);
+
+        voteBuffer.shutdown();
+
+        Path journal = tempDir.resolve("votes.log");
+        assertEquals(List.of("1,7,0:-1:-1"), Files.readAllLines(journal));
+
+        VoteBuffer restarted = newBuffer();
+        restarted.replayJournal();
+
+        assertEquals(-1, restarted.currentVoteState(1L, 7L, 0));
+        assertFalse(Files.exists(journal));
+    }
+}
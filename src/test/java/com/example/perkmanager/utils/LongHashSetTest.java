@@ -0,0 +1,88 @@
+package com.example.perkmanager.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void addAndContains() {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(5L));
+        assertTrue(set.add(-7L));
+        assertFalse(set.add(5L));
+
+        assertTrue(set.contains(5L));
+        assertTrue(set.contains(-7L));
+        assertFalse(set.contains(6L));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void zeroIsStoredSeparately() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0L));
+
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+        assertArrayEquals(new long[]{0L}, set.toArray());
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        LongHashSet set = new LongHashSet(2);
+        for (long id = 1; id <= 10_000; id++) set.add(id);
+
+        assertEquals(10_000, set.size());
+        for (long id = 1; id <= 10_000; id++) assertTrue(set.contains(id));
+        assertFalse(set.contains(10_001L));
+    }
+
+    @Test
+    void matchesHashSetForRandomValues() {
+        Random random = new Random(7);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            long value = random.nextInt(20_000) - 10_000;
+            assertEquals(expected.add(value), set.add(value));
+        }
+
+        assertEquals(expected, set.toSet());
+        for (long probe = -10_500; probe < 10_500; probe++) {
+            assertEquals(expected.contains(probe), set.contains(probe));
+        }
+    }
+
+    @Test
+    void toArrayReturnsEveryValue() {
+        long[] values = LongHashSet.of(3L, 1L, 2L, 1L).toArray();
+        Arrays.sort(values);
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, values);
+    }
+
+    @Test
+    void equalSetsHaveEqualHashCodes() {
+        LongHashSet a = LongHashSet.of(1L, 2L, 3L);
+        LongHashSet b = new LongHashSet(100);
+        b.add(3L);
+        b.add(2L);
+        b.add(1L);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, LongHashSet.of(1L, 2L));
+        assertEquals("[1, 2, 3]", b.toString());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.perkmanager.views;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentCacheDialectTest {
+
+    private static final Map<String, String> TEMPLATES = Map.of(
+            "row", "<p th:fragment=\"row\" cache:key=\"${id}\" th:attr=\"data-token=${_csrf.token}\" th:text=\"${text}\">x</p>",
+            "title", "<h1 th:fragment=\"title(name)\" cache:key=\"${name}\" th:text=\"${name}\">x</h1>",
+            "page", "<html xmlns:cache=\"urn:perkmanager:fragment-cache\"><p cache:replace=\"~{row :: row}\"></p></html>",
+            "titled", "<div cache:replace=\"~{title :: title(${heading})}\"></div>");
+
+    private FragmentCache fragmentCache;
+    private SpringTemplateEngine templateEngine;
+
+    @BeforeEach
+    void setUp() {
+        fragmentCache = new FragmentCache(true, 100);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(new AbstractConfigurableTemplateResolver() {
+            @Override
+            protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+                                                                String template, String resourceName,
+                                                                String characterEncoding,
+                                                                Map<String, Object> templateResolutionAttributes) {
+                return new StringTemplateResource(TEMPLATES.get(template));
+            }
+        });
+        templateEngine.addDialect(new FragmentCacheDialect(fragmentCache));
+    }
+
+    private String renderRow(long id, String text, String token) {
+        Context context = new Context();
+        context.setVariable("id", id);
+        context.setVariable("text", text);
+        CsrfToken csrfToken = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", token);
+        context.setVariable("_csrf", csrfToken);
+        context.setVariable(CsrfToken.class.getName(), csrfToken);
+        return templateEngine.process("page", context);
+    }
+
+    @Test
+    void replace_shouldRenderFragmentWithoutCacheAttributes() {
+        assertEquals("<html><p data-token=\"t1\">first</p></html>", renderRow(1, "first", "t1"));
+    }
+
+    @Test
+    void replace_withRenderedKey_shouldUseCachedHtml() {
+        renderRow(1, "first", "t1");
+
+        assertEquals("<html><p data-token=\"t2\">first</p></html>", renderRow(1, "changed", "t2"));
+        assertEquals(1, fragmentCache.getStats().hits());
+    }
+
+    @Test
+    void replace_withNewKey_shouldRenderAgain() {
+        renderRow(1, "first", "t1");
+
+        assertEquals("<html><p data-token=\"t2\">second</p></html>", renderRow(2, "second", "t2"));
+        assertEquals(2, fragmentCache.getStats().misses());
+    }
+
+    @Test
+    void replace_shouldKeyByFragmentParameters() {
+        Context context = new Context();
+        context.setVariable("heading", "Perks");
+        assertEquals("<h1>Perks</h1>", templateEngine.process("titled", context));
+
+        context.setVariable("heading", "Products");
+        assertEquals("<h1>Products</h1>", templateEngine.process("titled", context));
+        assertEquals(2, fragmentCache.getStats().size());
+    }
+}
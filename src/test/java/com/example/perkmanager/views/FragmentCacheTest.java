@@ -0,0 +1,55 @@
+package com.example.perkmanager.views;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentCacheTest {
+
+    private final FragmentCache fragmentCache = new FragmentCache(true, 2);
+
+    @Test
+    void get_withoutStoredFragment_shouldMiss() {
+        assertNull(fragmentCache.get("row @ 1", "token"));
+
+        assertEquals(new FragmentCache.Stats(0, 1, 0), fragmentCache.getStats());
+    }
+
+    @Test
+    void get_afterPut_shouldReturnStoredHtml() {
+        fragmentCache.put("footer", "<footer>PerkManager</footer>", "token");
+
+        assertEquals("<footer>PerkManager</footer>", fragmentCache.get("footer", "other"));
+        assertEquals(new FragmentCache.Stats(1, 0, 1), fragmentCache.getStats());
+    }
+
+    @Test
+    void get_withAnotherRequestsToken_shouldPutThatTokenBack() {
+        fragmentCache.put("row @ 1", "<div data-csrf-token=\"abc\"><input value=\"abc\"/></div>", "abc");
+
+        assertEquals("<div data-csrf-token=\"xyz\"><input value=\"xyz\"/></div>", fragmentCache.get("row @ 1", "xyz"));
+    }
+
+    @Test
+    void put_beyondMaxSize_shouldDropLeastRecentlyUsed() {
+        fragmentCache.put("a", "A", null);
+        fragmentCache.put("b", "B", null);
+        fragmentCache.get("a", null);
+
+        fragmentCache.put("c", "C", null);
+
+        assertEquals("A", fragmentCache.get("a", null));
+        assertNull(fragmentCache.get("b", null));
+        assertEquals("C", fragmentCache.get("c", null));
+    }
+
+    @Test
+    void disabledCache_shouldNotKeepFragments() {
+        FragmentCache disabled = new FragmentCache(false, 2);
+
+        disabled.put("footer", "<footer/>", null);
+
+        assertNull(disabled.get("footer", null));
+        assertEquals(0, disabled.getStats().size());
+    }
+}